@@ -0,0 +1,71 @@
+package com.example.spring_22.benchmark;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntFunction;
+
+final class BenchmarkDataLoader {
+
+    static final int AUTHORS = 1_000;
+
+    static final int GENRES = 50;
+
+    static final int COMMENTS_PER_BOOK = 2;
+
+    private static final int BATCH_SIZE = 10_000;
+
+    private static final int ID_ALLOCATION_SIZE = 50;
+
+    private BenchmarkDataLoader() {
+    }
+
+    static void load(JdbcTemplate jdbcTemplate, int books) {
+        insert(jdbcTemplate, "insert into author (id, full_name) values (?, ?)", AUTHORS,
+                i -> new Object[]{i, authorName(i)});
+        insert(jdbcTemplate, "insert into genre (id, genre_name) values (?, ?)", GENRES,
+                i -> new Object[]{i, genreName(i)});
+        insert(jdbcTemplate, "insert into book (id, name, author_id) values (?, ?, ?)", books,
+                i -> new Object[]{i, "Book " + i, i % AUTHORS + 1});
+        insert(jdbcTemplate, "insert into book_genre (book_id, genre_id) values (?, ?)", books * 2,
+                i -> bookGenreLink((i + 1) / 2, i % 2 == 0));
+        insert(jdbcTemplate, "insert into comment (id, book_id, comment_text) values (?, ?, ?)",
+                books * COMMENTS_PER_BOOK,
+                i -> new Object[]{i, (i - 1) / COMMENTS_PER_BOOK + 1, "Comment " + i});
+        restartSequence(jdbcTemplate, "author_seq", AUTHORS);
+        restartSequence(jdbcTemplate, "genre_seq", GENRES);
+        restartSequence(jdbcTemplate, "book_seq", books);
+        restartSequence(jdbcTemplate, "comment_seq", books * COMMENTS_PER_BOOK);
+    }
+
+    static String authorName(int id) {
+        return "Author " + id;
+    }
+
+    static String genreName(int id) {
+        return "Genre " + id;
+    }
+
+    private static Object[] bookGenreLink(int bookId, boolean second) {
+        return new Object[]{bookId, (bookId + (second ? 7 : 0)) % GENRES + 1};
+    }
+
+    private static void insert(JdbcTemplate jdbcTemplate, String sql, int rows, IntFunction<Object[]> row) {
+        List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 1; i <= rows; i++) {
+            batch.add(row.apply(i));
+            if (batch.size() == BATCH_SIZE) {
+                jdbcTemplate.batchUpdate(sql, batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            jdbcTemplate.batchUpdate(sql, batch);
+        }
+    }
+
+    private static void restartSequence(JdbcTemplate jdbcTemplate, String sequence, int maxId) {
+        jdbcTemplate.execute("alter sequence " + sequence + " restart with " + (maxId + ID_ALLOCATION_SIZE));
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.spring_22.benchmark;
+
+import com.example.spring_22.Application;
+import com.example.spring_22.config.LibraryProperties;
+import com.example.spring_22.dao.book.BookFilter;
+import com.example.spring_22.services.book.BookService;
+import com.example.spring_22.services.book.BulkDeleteResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deletes every book of a freshly loaded library, with {@value BenchmarkDataLoader#COMMENTS_PER_BOOK}
+ * comments and two genre links per book, in one transaction. Each measurement is a single shot, so the
+ * score is the time to delete all {@code books}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class BookDeleteBenchmark {
+
+    @Param({"100000"})
+    public int books;
+
+    @Param({"1000", "10000"})
+    public int chunkSize;
+
+    private ConfigurableApplicationContext context;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private BookService bookService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(Application.class)
+                .web(WebApplicationType.NONE)
+                .profiles("jmh")
+                .run();
+        context.getBean(LibraryProperties.class).getBooks().setDeleteChunkSize(chunkSize);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        bookService = context.getBean(BookService.class);
+    }
+
+    @Setup(Level.Iteration)
+    public void loadLibrary() {
+        for (String table : new String[]{"comment", "book_genre", "book", "genre", "author"}) {
+            jdbcTemplate.execute("delete from " + table);
+        }
+        BenchmarkDataLoader.load(jdbcTemplate, books);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public BulkDeleteResult deleteAllBooks() {
+        return bookService.deleteBooks(BookFilter.byIdRange(1, books));
+    }
+}
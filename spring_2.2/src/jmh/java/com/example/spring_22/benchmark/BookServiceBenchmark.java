@@ -0,0 +1,59 @@
+package com.example.spring_22.benchmark;
+
+import com.example.spring_22.domain.Author;
+import com.example.spring_22.domain.Book;
+import com.example.spring_22.domain.Genre;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class BookServiceBenchmark {
+
+    @Benchmark
+    public long saveBook(LibraryState state) {
+        return state.bookService.saveBook(Book.builder()
+                .name("New book")
+                .author(Author.builder()
+                        .fullName(state.randomAuthorName())
+                        .build())
+                .genres(Set.of(Genre.builder()
+                        .genreName(state.randomGenreName())
+                        .build()))
+                .build());
+    }
+
+    @Benchmark
+    public void updateBookById(LibraryState state) {
+        var bookId = state.randomBookId();
+        var version = state.bookService.getBookById(bookId).orElseThrow().getVersion();
+        state.bookService.updateBookById(Book.builder()
+                .id(bookId)
+                .version(version)
+                .name("Book " + bookId + " updated")
+                .author(Author.builder()
+                        .fullName(state.randomAuthorName())
+                        .build())
+                .genres(Set.of(Genre.builder()
+                        .genreName(state.randomGenreName())
+                        .build()))
+                .build());
+    }
+
+    @Benchmark
+    public void getAllBooks(LibraryState state, Blackhole blackhole) {
+        state.bookService.getAllBooks(blackhole::consume);
+    }
+}
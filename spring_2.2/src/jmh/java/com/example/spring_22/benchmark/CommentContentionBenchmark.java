@@ -0,0 +1,120 @@
+package com.example.spring_22.benchmark;
+
+import com.example.spring_22.Application;
+import com.example.spring_22.config.LibraryProperties;
+import com.example.spring_22.retry.ConflictRetryAspect;
+import com.example.spring_22.services.comment.CommentService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Eight threads increment an edit counter kept in the text of comments picked at random from the first
+ * {@code hotComments}, so fewer hot comments mean more version conflicts. Every edit reads the current text,
+ * so with {@code maxAttempts=1} a conflict fails the edit and otherwise it is re-read and re-applied. After
+ * each trial the counters of the hot comments must add up to the successful edits, which proves no edit
+ * was lost; conflict and failure counts are printed next to it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(8)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class CommentContentionBenchmark {
+
+    @Param({"10000"})
+    public int books;
+
+    @Param({"1", "16", "1024"})
+    public int hotComments;
+
+    @Param({"1", "5"})
+    public int maxAttempts;
+
+    private static final String EDITS = "Edits: ";
+
+    private final LongAdder updates = new LongAdder();
+
+    private final LongAdder failures = new LongAdder();
+
+    private ConfigurableApplicationContext context;
+
+    private CommentService commentService;
+
+    private MeterRegistry meterRegistry;
+
+    private JdbcTemplate jdbcTemplate;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(Application.class)
+                .web(WebApplicationType.NONE)
+                .profiles("jmh")
+                .run();
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        BenchmarkDataLoader.load(jdbcTemplate, books);
+        context.getBean(LibraryProperties.class).getRetry().setMaxAttempts(maxAttempts);
+        commentService = context.getBean(CommentService.class);
+        meterRegistry = context.getBean(MeterRegistry.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        double conflicts = meterRegistry.find(ConflictRetryAspect.CONFLICTS).counters().stream()
+                .mapToDouble(counter -> counter.count())
+                .sum();
+        long total = updates.sum();
+        long applied = jdbcTemplate.queryForList("select comment_text from comment where id <= ?", String.class,
+                        hotComments).stream()
+                .mapToLong(CommentContentionBenchmark::edits)
+                .sum();
+        System.out.printf(Locale.ROOT, "%nhotComments=%d maxAttempts=%d: %d edits, %.0f conflicts (%.2f per edit), "
+                        + "%d failed, %d applied%n",
+                hotComments, maxAttempts, total, conflicts, total > 0 ? conflicts / total : 0, failures.sum(), applied);
+        context.close();
+        if (applied != total - failures.sum()) {
+            throw new IllegalStateException("Lost edits: " + (total - failures.sum() - applied));
+        }
+    }
+
+    @Benchmark
+    public boolean editHotComment() {
+        long commentId = ThreadLocalRandom.current().nextLong(hotComments) + 1;
+        updates.increment();
+        try {
+            commentService.editCommentTextById(commentId, text -> EDITS + (edits(text) + 1));
+            return true;
+        } catch (OptimisticLockingFailureException e) {
+            failures.increment();
+            return false;
+        }
+    }
+
+    private static long edits(String text) {
+        return text != null && text.startsWith(EDITS) ? Long.parseLong(text.substring(EDITS.length())) : 0;
+    }
+}
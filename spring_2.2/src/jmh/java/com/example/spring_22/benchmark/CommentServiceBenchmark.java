@@ -0,0 +1,37 @@
+package com.example.spring_22.benchmark;
+
+import com.example.spring_22.domain.Book;
+import com.example.spring_22.domain.Comment;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class CommentServiceBenchmark {
+
+    @Benchmark
+    public long addCommentToBook(LibraryState state) {
+        return state.commentService.addCommentToBook(Comment.builder()
+                .text("New comment")
+                .book(Book.builder()
+                        .id(state.randomBookId())
+                        .build())
+                .build());
+    }
+
+    @Benchmark
+    public List<Comment> getAllCommentsOfBook(LibraryState state) {
+        return state.commentService.getAllCommentsOfBook(state.randomBookId());
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.spring_22.benchmark;
+
+import com.example.spring_22.Application;
+import com.example.spring_22.services.book.BookService;
+import com.example.spring_22.services.comment.CommentService;
+import com.example.spring_22.services.script.ScriptExecutionService;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+@State(Scope.Benchmark)
+public class LibraryState {
+
+    @Param({"1000", "100000", "1000000"})
+    public int books;
+
+    BookService bookService;
+
+    CommentService commentService;
+
+    ScriptExecutionService scriptExecutionService;
+
+    private ConfigurableApplicationContext context;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(Application.class)
+                .web(WebApplicationType.NONE)
+                .profiles("jmh")
+                .run();
+        BenchmarkDataLoader.load(context.getBean(JdbcTemplate.class), books);
+        bookService = context.getBean(BookService.class);
+        commentService = context.getBean(CommentService.class);
+        scriptExecutionService = context.getBean(ScriptExecutionService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    long randomBookId() {
+        return ThreadLocalRandom.current().nextLong(books) + 1;
+    }
+
+    String randomAuthorName() {
+        return BenchmarkDataLoader.authorName(ThreadLocalRandom.current().nextInt(BenchmarkDataLoader.AUTHORS) + 1);
+    }
+
+    String randomGenreName() {
+        return BenchmarkDataLoader.genreName(ThreadLocalRandom.current().nextInt(BenchmarkDataLoader.GENRES) + 1);
+    }
+}
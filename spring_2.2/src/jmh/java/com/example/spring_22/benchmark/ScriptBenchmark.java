@@ -0,0 +1,63 @@
+package com.example.spring_22.benchmark;
+
+import com.example.spring_22.services.script.ScriptResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs a script of {@value #COMMANDS} add and comment commands on the calling thread or fanned out onto
+ * virtual threads, with one transaction per command or per batch of 50. The in-memory H2 of the jmh profile
+ * has almost no round trip, so the gaps measured here are a lower bound of what a networked database shows.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ScriptBenchmark {
+
+    static final int COMMANDS = 200;
+
+    @Param({"false", "true"})
+    public boolean parallel;
+
+    @Param({"1", "50"})
+    public int batchSize;
+
+    private final AtomicLong scriptNumber = new AtomicLong();
+
+    @Benchmark
+    @OperationsPerInvocation(COMMANDS)
+    public ScriptResult runScript(LibraryState state) {
+        return state.scriptExecutionService.run(script(state), batchSize, parallel);
+    }
+
+    private List<String> script(LibraryState state) {
+        long number = scriptNumber.incrementAndGet();
+        List<String> lines = new ArrayList<>(COMMANDS);
+        for (int i = 0; i < COMMANDS; i++) {
+            if (i % 2 == 0) {
+                lines.add("add --bookName \"Script " + number + " book " + i + "\" --authorFullName \""
+                        + state.randomAuthorName() + "\" --genreNames \"" + state.randomGenreName() + "\"");
+            } else {
+                lines.add("ac --bookId " + state.randomBookId() + " --commentText \"Script comment " + i + "\"");
+            }
+        }
+        return lines;
+    }
+}
@@ -3,9 +3,11 @@ package com.example.spring_22;
 import com.example.spring_22.config.YamlPropertySourceFactory;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
 import org.springframework.context.annotation.PropertySource;
 
 @SpringBootApplication
+@ConfigurationPropertiesScan
 @PropertySource(value = "/application.yml", factory = YamlPropertySourceFactory.class)
 public class Application {
 
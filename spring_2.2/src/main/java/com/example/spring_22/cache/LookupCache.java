@@ -0,0 +1,93 @@
+package com.example.spring_22.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Name to entity cache for authors and genres. The application never deletes or renames an author or a
+ * genre, so the TTL and the size bound evict entries; rows changed outside the application are evicted
+ * through {@link #invalidate} and {@link #invalidateAll}.
+ */
+public class LookupCache<V> {
+
+    private final String name;
+
+    private final Cache<String, V> cache;
+
+    public LookupCache(String name, long maximumSize, Duration ttl) {
+        this.name = name;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Optional<V> get(String key) {
+        if (key == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(cache.getIfPresent(key));
+    }
+
+    /**
+     * Inside a transaction the value becomes visible only after commit,
+     * so rows created by a rolled back transaction never reach the cache.
+     */
+    public void put(String key, V value) {
+        if (key == null || value == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.put(key, value);
+                }
+            });
+        } else {
+            cache.put(key, value);
+        }
+    }
+
+    /**
+     * Inside a transaction the entry is evicted again after commit, so a value put by a transaction that
+     * committed in the meantime does not outlive the change.
+     */
+    public void invalidate(String key) {
+        if (key == null) {
+            return;
+        }
+        cache.invalidate(key);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.invalidate(key);
+                }
+            });
+        }
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+}
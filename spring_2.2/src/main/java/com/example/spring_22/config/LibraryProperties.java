@@ -0,0 +1,150 @@
+package com.example.spring_22.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+
+@Data
+@ConfigurationProperties(prefix = "library")
+public class LibraryProperties {
+
+    private Books books = new Books();
+
+    private Comments comments = new Comments();
+
+    private LookupCaches lookupCache = new LookupCaches();
+
+    private Script script = new Script();
+
+    private Diagnostics diagnostics = new Diagnostics();
+
+    private MultiGet multiGet = new MultiGet();
+
+    private Retry retry = new Retry();
+
+    private Outbox outbox = new Outbox();
+
+    private Metrics metrics = new Metrics();
+
+    @Data
+    public static class Books {
+
+        private int fetchSize = 100;
+
+        private int deleteChunkSize = 1000;
+    }
+
+    @Data
+    public static class Comments {
+
+        private int pageSize = 500;
+
+        private WriteBehind writeBehind = new WriteBehind();
+    }
+
+    @Data
+    public static class WriteBehind {
+
+        private boolean enabled = false;
+
+        private int capacity = 10_000;
+
+        private int flushSize = 500;
+
+        private Duration flushInterval = Duration.ofMillis(200);
+
+        private Duration offerTimeout = Duration.ofSeconds(1);
+
+        private Duration shutdownTimeout = Duration.ofSeconds(30);
+    }
+
+    @Data
+    public static class Script {
+
+        private int maxConcurrency = 0;
+    }
+
+    @Data
+    public static class MultiGet {
+
+        private int chunkSize = 512;
+    }
+
+    @Data
+    public static class Retry {
+
+        /**
+         * Attempts of a {@code @RetryOnConflict} method, including the first; one disables retries.
+         */
+        private int maxAttempts = 5;
+
+        private Duration initialBackoff = Duration.ofMillis(10);
+
+        private Duration maxBackoff = Duration.ofMillis(500);
+
+        private double multiplier = 2.0;
+    }
+
+    @Data
+    public static class Outbox {
+
+        private boolean relayEnabled = true;
+
+        private int batchSize = 500;
+
+        private Duration pollInterval = Duration.ofMillis(500);
+
+        /**
+         * How long {@code since} holds back new events, so transactions still committing do not leave gaps.
+         */
+        private Duration settleTime = Duration.ofSeconds(1);
+
+        /**
+         * How long delivered events stay readable through {@code since} before cleanup deletes them.
+         */
+        private Duration retention = Duration.ofHours(24);
+
+        private Duration cleanupInterval = Duration.ofMinutes(1);
+
+        private int cleanupBatchSize = 1000;
+    }
+
+    @Data
+    public static class Diagnostics {
+
+        /**
+         * Identical statements repeated this many times in one shell command or outermost service call
+         * are logged as a suspected N+1; zero disables the check.
+         */
+        private int repeatedStatementThreshold = 5;
+    }
+
+    @Data
+    public static class Metrics {
+
+        /**
+         * {@code Class.method} names whose timers also publish a percentile histogram; every other method
+         * only publishes its client-side percentiles.
+         */
+        private Set<String> histogramMethods = new HashSet<>();
+    }
+
+    @Data
+    public static class LookupCaches {
+
+        private CacheSpec authors = new CacheSpec();
+
+        private CacheSpec genres = new CacheSpec();
+    }
+
+    @Data
+    public static class CacheSpec {
+
+        private long maximumSize = 10_000;
+
+        private Duration ttl = Duration.ofMinutes(30);
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.spring_22.config;
+
+import com.example.spring_22.cache.LookupCache;
+import com.example.spring_22.domain.Author;
+import com.example.spring_22.domain.Genre;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class LookupCacheConfig {
+
+    @Bean
+    public LookupCache<Author> authorCache(LibraryProperties properties) {
+        LibraryProperties.CacheSpec spec = properties.getLookupCache().getAuthors();
+        return new LookupCache<>("authors", spec.getMaximumSize(), spec.getTtl());
+    }
+
+    @Bean
+    public LookupCache<Genre> genreCache(LibraryProperties properties) {
+        LibraryProperties.CacheSpec spec = properties.getLookupCache().getGenres();
+        return new LookupCache<>("genres", spec.getMaximumSize(), spec.getTtl());
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.spring_22.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Sends connections of read-only transactions to the replica and everything else to the primary.
+ * Must be wrapped in a {@code LazyConnectionDataSourceProxy}: the transaction manager opens the
+ * connection before the read-only flag of the transaction is published.
+ */
+public class ReadOnlyRoutingDataSource extends AbstractRoutingDataSource {
+
+    public enum Route {
+        PRIMARY,
+        REPLICA
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return TransactionSynchronizationManager.isCurrentTransactionReadOnly() ? Route.REPLICA : Route.PRIMARY;
+    }
+}
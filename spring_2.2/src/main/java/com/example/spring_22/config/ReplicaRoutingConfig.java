@@ -0,0 +1,53 @@
+package com.example.spring_22.config;
+
+import com.example.spring_22.config.ReadOnlyRoutingDataSource.Route;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Active when {@code library.datasource.replica.jdbc-url} is set. The primary pool is built from
+ * {@code spring.datasource} as Spring Boot would build it, the replica pool from
+ * {@code library.datasource.replica} (any Hikari setting, e.g. {@code maximum-pool-size}).
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "library.datasource.replica", name = "jdbc-url")
+public class ReplicaRoutingConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+    }
+
+    @Bean
+    @ConfigurationProperties("library.datasource.replica")
+    public HikariDataSource replicaDataSource() {
+        return DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .build();
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primaryDataSource,
+                                 @Qualifier("replicaDataSource") DataSource replicaDataSource) {
+        ReadOnlyRoutingDataSource routingDataSource = new ReadOnlyRoutingDataSource();
+        routingDataSource.setTargetDataSources(Map.of(Route.PRIMARY, primaryDataSource, Route.REPLICA, replicaDataSource));
+        routingDataSource.setDefaultTargetDataSource(primaryDataSource);
+        routingDataSource.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+}
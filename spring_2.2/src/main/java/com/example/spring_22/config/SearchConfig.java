@@ -0,0 +1,30 @@
+package com.example.spring_22.config;
+
+import com.example.spring_22.dao.search.BookSearchRepository;
+import com.example.spring_22.dao.search.BookSearchRepositoryInMemory;
+import com.example.spring_22.dao.search.BookSearchRepositoryPostgres;
+import jakarta.persistence.EntityManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+
+import javax.sql.DataSource;
+import java.sql.DatabaseMetaData;
+
+@Configuration
+public class SearchConfig {
+
+    @Bean
+    public BookSearchRepository bookSearchRepository(DataSource dataSource,
+                                                     NamedParameterJdbcTemplate namedParameterJdbcTemplate,
+                                                     EntityManager entityManager) throws MetaDataAccessException {
+        String databaseProductName = JdbcUtils.extractDatabaseMetaData(dataSource,
+                DatabaseMetaData::getDatabaseProductName);
+        if ("PostgreSQL".equals(databaseProductName)) {
+            return new BookSearchRepositoryPostgres(namedParameterJdbcTemplate);
+        }
+        return new BookSearchRepositoryInMemory(entityManager);
+    }
+}
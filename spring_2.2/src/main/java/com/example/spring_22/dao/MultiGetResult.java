@@ -0,0 +1,46 @@
+package com.example.spring_22.dao;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * Entities found for the requested ids in request order, duplicates collapsed, and the ids that were not found.
+ */
+public record MultiGetResult<T>(List<T> found, List<Long> missingIds) {
+
+    /**
+     * Loads the distinct ids in chunks of at most {@code chunkSize}; with
+     * {@code hibernate.query.in_clause_parameter_padding} a power-of-two chunk size keeps every full chunk
+     * on one cached query plan.
+     */
+    public static <T> MultiGetResult<T> load(Collection<Long> ids, int chunkSize,
+                                             Function<List<Long>, List<T>> loader, ToLongFunction<T> idOf) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive");
+        }
+        List<Long> distinctIds = new ArrayList<>(new LinkedHashSet<>(ids));
+        Map<Long, T> byId = new HashMap<>(distinctIds.size() * 2);
+        for (int from = 0; from < distinctIds.size(); from += chunkSize) {
+            for (T entity : loader.apply(distinctIds.subList(from, Math.min(from + chunkSize, distinctIds.size())))) {
+                byId.put(idOf.applyAsLong(entity), entity);
+            }
+        }
+        List<T> found = new ArrayList<>(byId.size());
+        List<Long> missingIds = new ArrayList<>();
+        for (Long id : distinctIds) {
+            T entity = byId.get(id);
+            if (entity != null) {
+                found.add(entity);
+            } else {
+                missingIds.add(id);
+            }
+        }
+        return new MultiGetResult<>(found, missingIds);
+    }
+}
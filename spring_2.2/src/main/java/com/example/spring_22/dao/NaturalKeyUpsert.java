@@ -0,0 +1,126 @@
+package com.example.spring_22.dao;
+
+import com.example.spring_22.metrics.StatementScope;
+import jakarta.persistence.EntityManager;
+import org.hibernate.JDBCException;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.id.IdentifierGenerator;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+
+public final class NaturalKeyUpsert {
+
+    private static final int MAX_MERGE_ATTEMPTS = 5;
+
+    private NaturalKeyUpsert() {
+    }
+
+    /**
+     * An existing row costs one select. A missing row takes an id from the entity's own Hibernate generator,
+     * so it comes from the pooled block Hibernate already holds and never collides with ids Hibernate hands
+     * out, and is inserted by one more statement; an id lost to a concurrent insert only leaves a gap.
+     */
+    public static long upsert(EntityManager entityManager, Class<?> entityType, String table, String column,
+                              String value) {
+        SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+        Long existingId = session.doReturningWork(connection -> selectId(connection, table, column, value));
+        if (existingId != null) {
+            return existingId;
+        }
+        IdentifierGenerator generator = (IdentifierGenerator) session.getFactory().getMappingMetamodel()
+                .getEntityDescriptor(entityType)
+                .getGenerator();
+        if (session.getJdbcServices().getDialect() instanceof PostgreSQLDialect) {
+            long newId = nextId(session, generator);
+            return session.doReturningWork(connection -> insertOnConflict(connection, table, column, value, newId));
+        }
+        return mergeWithRetry(session, generator, table, column, value);
+    }
+
+    /**
+     * The no-op update makes the statement return the id of a row a concurrent transaction inserted first.
+     */
+    private static long insertOnConflict(Connection connection, String table, String column, String value, long newId)
+            throws SQLException {
+        String sql = "INSERT INTO " + table + " (id, " + column + ") VALUES (?, ?) " +
+                "ON CONFLICT (" + column + ") DO UPDATE SET " + column + " = EXCLUDED." + column + " RETURNING id";
+        try (PreparedStatement statement = prepare(connection, sql)) {
+            statement.setLong(1, newId);
+            statement.setString(2, value);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                resultSet.next();
+                return resultSet.getLong(1);
+            }
+        }
+    }
+
+    /**
+     * Every attempt draws a new id, so an attempt that failed on an id already taken can succeed on the next.
+     */
+    private static long mergeWithRetry(SessionImplementor session, IdentifierGenerator generator, String table,
+                                       String column, String value) {
+        JDBCException lastError = null;
+        for (int attempt = 0; attempt < MAX_MERGE_ATTEMPTS; attempt++) {
+            long newId = nextId(session, generator);
+            try {
+                Long id = session.doReturningWork(connection -> merge(connection, table, column, value, newId));
+                if (id != null) {
+                    return id;
+                }
+            } catch (JDBCException e) {
+                lastError = e;
+            }
+        }
+        throw lastError != null ? lastError : new IllegalStateException("Upserted row is not visible in " + table);
+    }
+
+    private static Long merge(Connection connection, String table, String column, String value, long newId)
+            throws SQLException {
+        String sql = "MERGE INTO " + table + " t " +
+                "USING (SELECT CAST(? AS VARCHAR(255)) AS v) s ON t." + column + " = s.v " +
+                "WHEN NOT MATCHED THEN INSERT (id, " + column + ") VALUES (?, s.v)";
+        Savepoint savepoint = connection.setSavepoint();
+        try (PreparedStatement statement = prepare(connection, sql)) {
+            statement.setString(1, value);
+            statement.setLong(2, newId);
+            statement.executeUpdate();
+            connection.releaseSavepoint(savepoint);
+        } catch (SQLException e) {
+            connection.rollback(savepoint);
+            Long id = selectId(connection, table, column, value);
+            if (id == null) {
+                throw e;
+            }
+            return id;
+        }
+        return selectId(connection, table, column, value);
+    }
+
+    /**
+     * Hibernate's statement inspector never sees these statements, so they are recorded here.
+     */
+    private static PreparedStatement prepare(Connection connection, String sql) throws SQLException {
+        StatementScope.record(sql);
+        return connection.prepareStatement(sql);
+    }
+
+    private static long nextId(SessionImplementor session, IdentifierGenerator generator) {
+        return ((Number) generator.generate(session, null)).longValue();
+    }
+
+    private static Long selectId(Connection connection, String table, String column, String value)
+            throws SQLException {
+        try (PreparedStatement statement = prepare(connection,
+                "SELECT id FROM " + table + " WHERE " + column + " = ?")) {
+            statement.setString(1, value);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() ? resultSet.getLong(1) : null;
+            }
+        }
+    }
+}
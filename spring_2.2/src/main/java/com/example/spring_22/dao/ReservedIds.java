@@ -0,0 +1,66 @@
+package com.example.spring_22.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Ids taken from a pooled sequence for rows written with plain SQL. Every sequence value stands for the block of
+ * ids that ends at it, the way Hibernate's pooled optimizer reads it, so blocks may have gaps between them but
+ * never overlap with the ids Hibernate or another reservation hands out.
+ */
+public final class ReservedIds {
+
+    private static final int ALLOCATION_SIZE = 50;
+
+    private final long[] blockEnds;
+
+    private int block;
+
+    private long next = 1;
+
+    private long end;
+
+    private ReservedIds(long[] blockEnds) {
+        this.blockEnds = blockEnds;
+    }
+
+    /**
+     * Takes as many sequence values as the ids need in one statement. Each value is taken atomically by the
+     * database, so reservations running next to Hibernate's pooled generator or to each other never share ids.
+     */
+    public static ReservedIds reserve(Connection connection, String sequenceName, long count) throws SQLException {
+        boolean postgres = "PostgreSQL".equals(connection.getMetaData().getDatabaseProductName());
+        List<Long> blockEnds = new ArrayList<>();
+        try (PreparedStatement statement = connection.prepareStatement(postgres
+                ? "select nextval('" + sequenceName + "') from generate_series(1, ?)"
+                : "select next value for " + sequenceName + " from system_range(1, ?)")) {
+            // the first value of a fresh sequence stands for a single id, so a second round may be needed
+            for (long covered = 0; covered < count; ) {
+                statement.setLong(1, (count - covered + ALLOCATION_SIZE - 1) / ALLOCATION_SIZE);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        long blockEnd = resultSet.getLong(1);
+                        blockEnds.add(blockEnd);
+                        covered += Math.min(blockEnd, ALLOCATION_SIZE);
+                    }
+                }
+            }
+        }
+        return new ReservedIds(blockEnds.stream().mapToLong(Long::longValue).sorted().toArray());
+    }
+
+    public long next() {
+        if (next > end) {
+            if (block == blockEnds.length) {
+                throw new IllegalStateException("All reserved ids are used");
+            }
+            end = blockEnds[block++];
+            next = Math.max(1, end - ALLOCATION_SIZE + 1);
+        }
+        return next++;
+    }
+}
@@ -8,4 +8,6 @@ public interface AuthorRepository {
     Optional<Author> getByFullName(String fullName);
 
     Author save(Author author);
+
+    Author upsertByFullName(String fullName);
 }
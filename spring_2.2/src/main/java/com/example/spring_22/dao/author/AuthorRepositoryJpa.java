@@ -1,12 +1,12 @@
 package com.example.spring_22.dao.author;
 
+import com.example.spring_22.dao.NaturalKeyUpsert;
 import com.example.spring_22.domain.Author;
 import jakarta.persistence.EntityManager;
-import jakarta.persistence.TypedQuery;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.Session;
 import org.springframework.stereotype.Repository;
 
-import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -17,11 +17,9 @@ public class AuthorRepositoryJpa implements AuthorRepository{
 
     @Override
     public Optional<Author> getByFullName(String fullName) {
-        TypedQuery<Author> query = entityManager.createQuery("select a from Author a " +
-                "where a.fullName = :full_name", Author.class);
-        query.setParameter("full_name", fullName);
-        List<Author> authors = query.getResultList();
-        return authors.isEmpty() ? Optional.empty() : Optional.of(authors.get(0));
+        return entityManager.unwrap(Session.class)
+                .bySimpleNaturalId(Author.class)
+                .loadOptional(fullName);
     }
 
     @Override
@@ -33,4 +31,13 @@ public class AuthorRepositoryJpa implements AuthorRepository{
             return entityManager.merge(author);
         }
     }
+
+    @Override
+    public Author upsertByFullName(String fullName) {
+        long id = NaturalKeyUpsert.upsert(entityManager, Author.class, "author", "full_name", fullName);
+        return Author.builder()
+                .id(id)
+                .fullName(fullName)
+                .build();
+    }
 }
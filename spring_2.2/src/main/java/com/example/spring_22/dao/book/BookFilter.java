@@ -0,0 +1,29 @@
+package com.example.spring_22.dao.book;
+
+import java.util.Collection;
+
+/**
+ * Matches books satisfying every non-null criterion; the id range is inclusive.
+ */
+public record BookFilter(Collection<Long> ids, Long authorId, Long genreId, Long fromId, Long toId) {
+
+    public static BookFilter byIds(Collection<Long> ids) {
+        return new BookFilter(ids, null, null, null, null);
+    }
+
+    public static BookFilter byAuthorId(long authorId) {
+        return new BookFilter(null, authorId, null, null, null);
+    }
+
+    public static BookFilter byGenreId(long genreId) {
+        return new BookFilter(null, null, genreId, null, null);
+    }
+
+    public static BookFilter byIdRange(long fromId, long toId) {
+        return new BookFilter(null, null, null, fromId, toId);
+    }
+
+    public boolean isEmpty() {
+        return ids == null && authorId == null && genreId == null && fromId == null && toId == null;
+    }
+}
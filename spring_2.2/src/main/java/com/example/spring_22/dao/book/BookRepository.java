@@ -1,11 +1,15 @@
 package com.example.spring_22.dao.book;
 
+import com.example.spring_22.dao.MultiGetResult;
 import com.example.spring_22.domain.Author;
 import com.example.spring_22.domain.Book;
 import com.example.spring_22.domain.Genre;
 
+import java.util.Collection;
 import java.util.Optional;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
 
 public interface BookRepository {
 
@@ -13,9 +17,23 @@ public interface BookRepository {
 
     Optional<Book> findById(long id);
 
+    Optional<Book> findWithAuthorAndGenresById(long id);
+
     List<Book> findAll();
 
-    void updateNameById(long id, String newName);
+    List<Book> findPage(long afterId, int limit);
+
+    /**
+     * Books with their authors and genres, one round trip per chunk of ids.
+     */
+    MultiGetResult<Book> findAllByIds(Collection<Long> ids, int chunkSize);
+
+    Stream<Book> streamAll(int fetchSize);
+
+    /**
+     * Takes the row lock of the book until the end of the transaction; does nothing if there is no such book.
+     */
+    void lockById(long id);
 
     void deleteById(long id);
 
@@ -26,4 +44,40 @@ public interface BookRepository {
     void deleteBookGenreLinks(long bookId);
 
     void deleteGenreFromBook(long bookId, Genre genre);
+
+    void replaceGenres(long bookId, Set<Long> genreIds);
+
+    /**
+     * Applies the changes with at most one update of the book row and a batched genre diff. The book row is updated first, so its version is checked and its
+     * row lock held before the genre links are read. A loaded copy of the book is detached, so the next
+     * read sees the new state.
+     */
+    void patch(BookChanges changes);
+
+    /**
+     * Ids of matching books in ascending order.
+     */
+    List<Long> findIds(BookFilter filter);
+
+    /**
+     * Deletes genre links, comments and books with one set-based statement each per chunk of ids.
+     */
+    DeletedRows deleteAllByIds(List<Long> ids, int chunkSize);
+
+    /**
+     * A null name or genre set is left unchanged; the author is written only when {@code authorChanged}.
+     * A null {@code expectedVersion} skips the version check.
+     */
+    record BookChanges(long bookId, Long expectedVersion, String name, boolean authorChanged, Long authorId,
+                       Set<Long> genreIds) {
+    }
+
+    record DeletedRows(long books, long comments, long genreLinks) {
+
+        public static final DeletedRows NONE = new DeletedRows(0, 0, 0);
+
+        public DeletedRows plus(DeletedRows other) {
+            return new DeletedRows(books + other.books, comments + other.comments, genreLinks + other.genreLinks);
+        }
+    }
 }
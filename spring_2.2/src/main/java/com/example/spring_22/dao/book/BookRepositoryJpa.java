@@ -1,23 +1,36 @@
 package com.example.spring_22.dao.book;
 
+import com.example.spring_22.dao.MultiGetResult;
 import com.example.spring_22.domain.Author;
 import com.example.spring_22.domain.Book;
 import com.example.spring_22.domain.Genre;
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.OptimisticLockException;
 import jakarta.persistence.PersistenceContext;
 import jakarta.persistence.Query;
 import jakarta.persistence.TypedQuery;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.Hibernate;
+import org.hibernate.query.NativeQuery;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.stereotype.Repository;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Stream;
 
 @RequiredArgsConstructor
 @Repository
 public class BookRepositoryJpa implements BookRepository{
 
+    private static final int ID_CHUNK_SIZE = 1000;
+
     @PersistenceContext
     private final EntityManager entityManager;
 
@@ -36,6 +49,17 @@ public class BookRepositoryJpa implements BookRepository{
         return Optional.ofNullable(entityManager.find(Book.class, id));
     }
 
+    @Override
+    public Optional<Book> findWithAuthorAndGenresById(long id) {
+        TypedQuery<Book> query = entityManager.createQuery("select b from Book b " +
+                "left join fetch b.author " +
+                "left join fetch b.genres " +
+                "where b.id = :id", Book.class);
+        query.setParameter("id", id);
+        List<Book> books = query.getResultList();
+        return books.isEmpty() ? Optional.empty() : Optional.of(books.get(0));
+    }
+
     @Override
     public List<Book> findAll() {
         TypedQuery<Book> query = entityManager.createQuery("select b from Book b", Book.class);
@@ -43,22 +67,59 @@ public class BookRepositoryJpa implements BookRepository{
     }
 
     @Override
-    public void updateNameById(long id, String newName) {
-        Query query = entityManager.createQuery("update Book b " +
-                "set b.name = :name " +
-                "where b.id = :id");
-        query.setParameter("name", newName);
-        query.setParameter("id", id);
-        query.executeUpdate();
+    public List<Book> findPage(long afterId, int limit) {
+        TypedQuery<Long> idsQuery = entityManager.createQuery("select b.id from Book b " +
+                "where b.id > :afterId " +
+                "order by b.id", Long.class);
+        idsQuery.setParameter("afterId", afterId);
+        idsQuery.setMaxResults(limit);
+        List<Long> ids = idsQuery.getResultList();
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        TypedQuery<Book> query = entityManager.createQuery("select b from Book b " +
+                "left join fetch b.author " +
+                "left join fetch b.genres " +
+                "where b.id in :ids " +
+                "order by b.id", Book.class);
+        query.setParameter("ids", ids);
+        return query.getResultList();
+    }
+
+    @Override
+    public MultiGetResult<Book> findAllByIds(Collection<Long> ids, int chunkSize) {
+        return MultiGetResult.load(ids, chunkSize, chunk -> entityManager.createQuery("select b from Book b " +
+                        "left join fetch b.author " +
+                        "left join fetch b.genres " +
+                        "where b.id in :ids", Book.class)
+                .setParameter("ids", chunk)
+                .getResultList(), Book::getId);
+    }
+
+    @Override
+    public Stream<Book> streamAll(int fetchSize) {
+        TypedQuery<Book> query = entityManager.createQuery("select b from Book b " +
+                "left join fetch b.author " +
+                "left join fetch b.genres " +
+                "order by b.id", Book.class);
+        query.setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize);
+        query.setHint(HibernateHints.HINT_READ_ONLY, true);
+        return query.getResultStream()
+                .peek(entityManager::detach);
+    }
+
+    @Override
+    public void lockById(long id) {
+        entityManager.createQuery("select b.id from Book b " +
+                        "where b.id = :id", Long.class)
+                .setParameter("id", id)
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .getResultList();
     }
 
     @Override
     public void deleteById(long id) {
-        Query query = entityManager.createQuery("delete " +
-                "from Book b " +
-                "where b.id = :id");
-        query.setParameter("id", id);
-        query.executeUpdate();
+        deleteAllByIds(List.of(id), 1);
     }
 
     @Override
@@ -90,7 +151,7 @@ public class BookRepositoryJpa implements BookRepository{
             throw new IllegalArgumentException("There is no book with such id");
         }
         Book book = bookOptional.get();
-        book.setGenres(new ArrayList<>());
+        book.setGenres(new HashSet<>());
         entityManager.merge(book);
     }
 
@@ -104,4 +165,206 @@ public class BookRepositoryJpa implements BookRepository{
         book.getGenres().remove(genre);
         entityManager.merge(book);
     }
+
+    @Override
+    public void replaceGenres(long bookId, Set<Long> genreIds) {
+        entityManager.flush();
+        if (diffGenres(bookId, genreIds) > 1) {
+            refreshIfLoaded(bookId);
+        }
+    }
+
+    @Override
+    public void patch(BookChanges changes) {
+        if (changes.name() == null && !changes.authorChanged() && changes.genreIds() == null) {
+            return;
+        }
+        entityManager.flush();
+        List<String> assignments = new ArrayList<>(3);
+        if (changes.name() != null) {
+            assignments.add("b.name = :name");
+        }
+        if (changes.authorChanged()) {
+            assignments.add(changes.authorId() != null ? "b.author = :author" : "b.author = null");
+        }
+        assignments.add("b.version = b.version + 1");
+        Query query = entityManager.createQuery("update Book b " +
+                "set " + String.join(", ", assignments) + " " +
+                "where b.id = :id" + (changes.expectedVersion() != null ? " and b.version = :version" : ""));
+        if (changes.name() != null) {
+            query.setParameter("name", changes.name());
+        }
+        if (changes.authorChanged() && changes.authorId() != null) {
+            query.setParameter("author", entityManager.getReference(Author.class, changes.authorId()));
+        }
+        if (changes.expectedVersion() != null) {
+            query.setParameter("version", changes.expectedVersion());
+        }
+        query.setParameter("id", changes.bookId());
+        if (query.executeUpdate() == 0) {
+            throw conflictOrMissing(changes.bookId());
+        }
+        if (changes.genreIds() != null) {
+            diffGenres(changes.bookId(), changes.genreIds());
+        }
+        entityManager.detach(entityManager.getReference(Book.class, changes.bookId()));
+    }
+
+    @Override
+    public List<Long> findIds(BookFilter filter) {
+        if (filter.ids() == null) {
+            return findIdsChunk(filter, null);
+        }
+        List<Long> sortedIds = new ArrayList<>(new TreeSet<>(filter.ids()));
+        List<Long> ids = new ArrayList<>(sortedIds.size());
+        for (int from = 0; from < sortedIds.size(); from += ID_CHUNK_SIZE) {
+            ids.addAll(findIdsChunk(filter, sortedIds.subList(from, Math.min(from + ID_CHUNK_SIZE, sortedIds.size()))));
+        }
+        return ids;
+    }
+
+    @Override
+    public DeletedRows deleteAllByIds(List<Long> ids, int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive");
+        }
+        entityManager.flush();
+        DeletedRows deleted = DeletedRows.NONE;
+        for (int from = 0; from < ids.size(); from += chunkSize) {
+            List<Long> chunk = ids.subList(from, Math.min(from + chunkSize, ids.size()));
+            long genreLinks = deleteByBookIds("delete from book_genre where book_id in (:ids)", "book_genre", chunk);
+            long comments = deleteByBookIds("delete from comment where book_id in (:ids)", "comment", chunk);
+            long books = deleteByBookIds("delete from book where id in (:ids)", "book", chunk);
+            deleted = deleted.plus(new DeletedRows(books, comments, genreLinks));
+        }
+        return deleted;
+    }
+
+    private List<Long> findIdsChunk(BookFilter filter, List<Long> ids) {
+        StringBuilder jpql = new StringBuilder("select b.id from Book b where 1 = 1");
+        if (ids != null) {
+            jpql.append(" and b.id in :ids");
+        }
+        if (filter.authorId() != null) {
+            jpql.append(" and b.author.id = :authorId");
+        }
+        if (filter.genreId() != null) {
+            jpql.append(" and b.id in (select gb.id from Book gb join gb.genres g where g.id = :genreId)");
+        }
+        if (filter.fromId() != null) {
+            jpql.append(" and b.id >= :fromId");
+        }
+        if (filter.toId() != null) {
+            jpql.append(" and b.id <= :toId");
+        }
+        TypedQuery<Long> query = entityManager.createQuery(jpql.append(" order by b.id").toString(), Long.class);
+        if (ids != null) {
+            query.setParameter("ids", ids);
+        }
+        if (filter.authorId() != null) {
+            query.setParameter("authorId", filter.authorId());
+        }
+        if (filter.genreId() != null) {
+            query.setParameter("genreId", filter.genreId());
+        }
+        if (filter.fromId() != null) {
+            query.setParameter("fromId", filter.fromId());
+        }
+        if (filter.toId() != null) {
+            query.setParameter("toId", filter.toId());
+        }
+        return query.getResultList();
+    }
+
+    private long deleteByBookIds(String sql, String table, List<Long> bookIds) {
+        Query query = synchronizedQuery(sql, table);
+        query.setParameter("ids", bookIds);
+        return query.executeUpdate();
+    }
+
+    /**
+     * Returns the number of statements executed: the lookup of current links, then at most one delete and one insert.
+     */
+    private int diffGenres(long bookId, Set<Long> genreIds) {
+        Set<Long> currentGenreIds = findGenreIds(bookId);
+        Set<Long> genreIdsToDelete = new HashSet<>(currentGenreIds);
+        genreIdsToDelete.removeAll(genreIds);
+        Set<Long> genreIdsToInsert = new HashSet<>(genreIds);
+        genreIdsToInsert.removeAll(currentGenreIds);
+        int statements = 1;
+        if (!genreIdsToDelete.isEmpty()) {
+            deleteGenreLinks(bookId, genreIdsToDelete);
+            statements++;
+        }
+        if (!genreIdsToInsert.isEmpty()) {
+            insertGenreLinks(bookId, genreIdsToInsert);
+            statements++;
+        }
+        return statements;
+    }
+
+    private Optional<Long> findVersionById(long id) {
+        List<Long> versions = entityManager.createQuery("select b.version from Book b " +
+                        "where b.id = :id", Long.class)
+                .setParameter("id", id)
+                .getResultList();
+        return versions.stream().findFirst();
+    }
+
+    private RuntimeException conflictOrMissing(long bookId) {
+        if (findVersionById(bookId).isPresent()) {
+            return new OptimisticLockException("Book " + bookId + " was changed by another transaction");
+        }
+        return new IllegalArgumentException("There is no book with such id");
+    }
+
+    private Set<Long> findGenreIds(long bookId) {
+        Query query = bookGenreQuery("select genre_id from book_genre where book_id = :bookId");
+        query.setParameter("bookId", bookId);
+        Set<Long> genreIds = new HashSet<>();
+        for (Object genreId : query.getResultList()) {
+            genreIds.add(((Number) genreId).longValue());
+        }
+        return genreIds;
+    }
+
+    private void deleteGenreLinks(long bookId, Set<Long> genreIds) {
+        Query query = bookGenreQuery("delete from book_genre " +
+                "where book_id = :bookId and genre_id in (:genreIds)");
+        query.setParameter("bookId", bookId);
+        query.setParameter("genreIds", genreIds);
+        query.executeUpdate();
+    }
+
+    private void insertGenreLinks(long bookId, Set<Long> genreIds) {
+        StringBuilder sql = new StringBuilder("insert into book_genre (book_id, genre_id) values ");
+        int i = 0;
+        for (Long ignored : genreIds) {
+            sql.append(i == 0 ? "" : ", ").append("(:bookId, :genreId").append(i++).append(')');
+        }
+        Query query = bookGenreQuery(sql.toString());
+        query.setParameter("bookId", bookId);
+        i = 0;
+        for (Long genreId : genreIds) {
+            query.setParameter("genreId" + i++, genreId);
+        }
+        query.executeUpdate();
+    }
+
+    private Query bookGenreQuery(String sql) {
+        return synchronizedQuery(sql, "book_genre");
+    }
+
+    private Query synchronizedQuery(String sql, String table) {
+        return entityManager.createNativeQuery(sql)
+                .unwrap(NativeQuery.class)
+                .addSynchronizedQuerySpace(table);
+    }
+
+    private void refreshIfLoaded(long bookId) {
+        Book book = entityManager.getReference(Book.class, bookId);
+        if (Hibernate.isInitialized(book)) {
+            entityManager.refresh(book);
+        }
+    }
 }
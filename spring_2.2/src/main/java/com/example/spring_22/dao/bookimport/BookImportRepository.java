@@ -0,0 +1,26 @@
+package com.example.spring_22.dao.bookimport;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+public interface BookImportRepository {
+
+    Map<String, Long> findAuthorIdsByFullNames(Collection<String> fullNames);
+
+    Map<String, Long> insertAuthors(Collection<String> fullNames);
+
+    Map<String, Long> findGenreIdsByNames(Collection<String> genreNames);
+
+    Map<String, Long> insertGenres(Collection<String> genreNames);
+
+    List<Long> insertBooks(List<BookRow> books);
+
+    void insertBookGenreLinks(List<BookGenreLink> links);
+
+    record BookRow(String name, Long authorId) {
+    }
+
+    record BookGenreLink(long bookId, long genreId) {
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.spring_22.dao.bookimport;
+
+import com.example.spring_22.dao.ReservedIds;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Repository
+@RequiredArgsConstructor
+public class BookImportRepositoryJdbc implements BookImportRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Override
+    public Map<String, Long> findAuthorIdsByFullNames(Collection<String> fullNames) {
+        return findIdsByNames("select id, full_name from author where full_name in (:names)", fullNames);
+    }
+
+    @Override
+    public Map<String, Long> insertAuthors(Collection<String> fullNames) {
+        return insertNames("insert into author (id, full_name) values (?, ?)", "author_seq", fullNames);
+    }
+
+    @Override
+    public Map<String, Long> findGenreIdsByNames(Collection<String> genreNames) {
+        return findIdsByNames("select id, genre_name from genre where genre_name in (:names)", genreNames);
+    }
+
+    @Override
+    public Map<String, Long> insertGenres(Collection<String> genreNames) {
+        return insertNames("insert into genre (id, genre_name) values (?, ?)", "genre_seq", genreNames);
+    }
+
+    @Override
+    public List<Long> insertBooks(List<BookRow> books) {
+        return insertWithReservedIds("insert into book (id, name, author_id) values (?, ?, ?)", "book_seq",
+                books.size(), (ps, i) -> {
+                    BookRow book = books.get(i);
+                    ps.setString(2, book.name());
+                    if (book.authorId() == null) {
+                        ps.setNull(3, Types.BIGINT);
+                    } else {
+                        ps.setLong(3, book.authorId());
+                    }
+                });
+    }
+
+    @Override
+    public void insertBookGenreLinks(List<BookGenreLink> links) {
+        if (links.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate("insert into book_genre (book_id, genre_id) values (?, ?)", links, links.size(),
+                (ps, link) -> {
+                    ps.setLong(1, link.bookId());
+                    ps.setLong(2, link.genreId());
+                });
+    }
+
+    private Map<String, Long> findIdsByNames(String sql, Collection<String> names) {
+        Map<String, Long> ids = new HashMap<>();
+        if (names.isEmpty()) {
+            return ids;
+        }
+        namedParameterJdbcTemplate.query(sql, Map.of("names", names),
+                rs -> {
+                    ids.put(rs.getString(2), rs.getLong(1));
+                });
+        return ids;
+    }
+
+    private Map<String, Long> insertNames(String sql, String sequenceName, Collection<String> names) {
+        List<String> orderedNames = new ArrayList<>(names);
+        List<Long> ids = insertWithReservedIds(sql, sequenceName, orderedNames.size(),
+                (ps, i) -> ps.setString(2, orderedNames.get(i)));
+        Map<String, Long> idsByName = new HashMap<>();
+        for (int i = 0; i < orderedNames.size(); i++) {
+            idsByName.put(orderedNames.get(i), ids.get(i));
+        }
+        return idsByName;
+    }
+
+    /**
+     * Writes ids taken from the entity's pooled sequence into the first parameter: the id columns have no
+     * defaults, so rows written with plain SQL stay out of the id blocks Hibernate hands out.
+     */
+    private List<Long> insertWithReservedIds(String sql, String sequenceName, int size, RowSetter rowSetter) {
+        if (size == 0) {
+            return List.of();
+        }
+        ReservedIds reservedIds = jdbcTemplate.execute((ConnectionCallback<ReservedIds>) connection ->
+                ReservedIds.reserve(connection, sequenceName, size));
+        long[] ids = new long[size];
+        for (int i = 0; i < size; i++) {
+            ids[i] = reservedIds.next();
+        }
+        jdbcTemplate.batchUpdate(sql, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                ps.setLong(1, ids[i]);
+                rowSetter.setValues(ps, i);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return size;
+            }
+        });
+        return Arrays.stream(ids).boxed().toList();
+    }
+
+    @FunctionalInterface
+    private interface RowSetter {
+        void setValues(PreparedStatement ps, int i) throws SQLException;
+    }
+}
@@ -1,19 +1,42 @@
 package com.example.spring_22.dao.comment;
 
+import com.example.spring_22.dao.MultiGetResult;
 import com.example.spring_22.domain.Book;
 import com.example.spring_22.domain.Comment;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 public interface CommentRepository {
     Comment save(Comment comment);
 
+    List<Comment> saveAll(List<Comment> comments);
+
     Optional<Comment> findById(long id);
 
+    /**
+     * Comments with their books left lazy, one round trip per chunk of ids.
+     */
+    MultiGetResult<Comment> findAllByIds(Collection<Long> ids, int chunkSize);
+
     List<Comment> findAllByBookId(long bookId);
 
-    void updateTextById(long id, String newText);
+    List<Comment> findByBookId(long bookId, long afterCommentId, int limit);
+
+    long countByBookId(long bookId);
+
+    Optional<Long> findVersionById(long id);
+
+    /**
+     * Empty when there is no such comment or it has no book.
+     */
+    Optional<Long> findBookIdById(long id);
+
+    /**
+     * Changes the text only if the comment is still at {@code expectedVersion}, and increments the version.
+     */
+    void updateTextById(long id, long expectedVersion, String newText);
 
     void deleteById(long id);
 
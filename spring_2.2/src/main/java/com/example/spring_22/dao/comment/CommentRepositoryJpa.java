@@ -1,13 +1,16 @@
 package com.example.spring_22.dao.comment;
 
+import com.example.spring_22.dao.MultiGetResult;
 import com.example.spring_22.domain.Book;
 import com.example.spring_22.domain.Comment;
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.OptimisticLockException;
 import jakarta.persistence.Query;
 import jakarta.persistence.TypedQuery;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -27,11 +30,35 @@ public class CommentRepositoryJpa implements CommentRepository {
         }
     }
 
+    /**
+     * Persists new comments against book references, so no book is loaded; the inserts go out
+     * as one JDBC batch per {@code hibernate.jdbc.batch_size} rows on flush.
+     */
+    @Override
+    public List<Comment> saveAll(List<Comment> comments) {
+        for (Comment comment : comments) {
+            if (comment.getBook() != null) {
+                comment.setBook(entityManager.getReference(Book.class, comment.getBook().getId()));
+            }
+            entityManager.persist(comment);
+        }
+        entityManager.flush();
+        return comments;
+    }
+
     @Override
     public Optional<Comment> findById(long id) {
         return Optional.ofNullable(entityManager.find(Comment.class, id));
     }
 
+    @Override
+    public MultiGetResult<Comment> findAllByIds(Collection<Long> ids, int chunkSize) {
+        return MultiGetResult.load(ids, chunkSize, chunk -> entityManager.createQuery("select c from Comment c " +
+                        "where c.id in :ids", Comment.class)
+                .setParameter("ids", chunk)
+                .getResultList(), Comment::getId);
+    }
+
     @Override
     public List<Comment> findAllByBookId(long bookId) {
         TypedQuery<Comment> query = entityManager.createQuery("select c from Comment c " +
@@ -41,13 +68,56 @@ public class CommentRepositoryJpa implements CommentRepository {
     }
 
     @Override
-    public void updateTextById(long id, String newText) {
+    public List<Comment> findByBookId(long bookId, long afterCommentId, int limit) {
+        TypedQuery<Comment> query = entityManager.createQuery("select c from Comment c " +
+                "where c.book.id = :bookId and c.id > :afterId " +
+                "order by c.id", Comment.class);
+        query.setParameter("bookId", bookId);
+        query.setParameter("afterId", afterCommentId);
+        query.setMaxResults(limit);
+        return query.getResultList();
+    }
+
+    @Override
+    public long countByBookId(long bookId) {
+        TypedQuery<Long> query = entityManager.createQuery("select count(c) from Comment c " +
+                "where c.book.id = :bookId", Long.class);
+        query.setParameter("bookId", bookId);
+        return query.getSingleResult();
+    }
+
+    @Override
+    public Optional<Long> findVersionById(long id) {
+        List<Long> versions = entityManager.createQuery("select c.version from Comment c " +
+                        "where c.id = :id", Long.class)
+                .setParameter("id", id)
+                .getResultList();
+        return versions.stream().findFirst();
+    }
+
+    @Override
+    public Optional<Long> findBookIdById(long id) {
+        List<Long> bookIds = entityManager.createQuery("select c.book.id from Comment c " +
+                        "where c.id = :id and c.book is not null", Long.class)
+                .setParameter("id", id)
+                .getResultList();
+        return bookIds.stream().findFirst();
+    }
+
+    @Override
+    public void updateTextById(long id, long expectedVersion, String newText) {
         Query query = entityManager.createQuery("update Comment c " +
-                "set c.text = :text " +
-                "where c.id = :id");
+                "set c.text = :text, c.version = c.version + 1 " +
+                "where c.id = :id and c.version = :version");
         query.setParameter("text", newText);
         query.setParameter("id", id);
-        query.executeUpdate();
+        query.setParameter("version", expectedVersion);
+        if (query.executeUpdate() == 0) {
+            if (findVersionById(id).isPresent()) {
+                throw new OptimisticLockException("Comment " + id + " was changed by another transaction");
+            }
+            throw new IllegalArgumentException("There is no comment with such id");
+        }
     }
 
     @Override
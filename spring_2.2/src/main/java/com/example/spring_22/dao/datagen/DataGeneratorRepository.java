@@ -0,0 +1,27 @@
+package com.example.spring_22.dao.datagen;
+
+import com.example.spring_22.dao.ReservedIds;
+
+import java.util.List;
+
+public interface DataGeneratorRepository {
+
+    ReservedIds reserveIds(String sequenceName, long count);
+
+    void insertAuthors(List<NamedRow> authors);
+
+    void insertGenres(List<NamedRow> genres);
+
+    void insertBooks(List<BookRow> books);
+
+    void insertComments(List<CommentRow> comments);
+
+    record NamedRow(long id, String name) {
+    }
+
+    record BookRow(long id, String name, long authorId) {
+    }
+
+    record CommentRow(long id, long bookId, String text) {
+    }
+}
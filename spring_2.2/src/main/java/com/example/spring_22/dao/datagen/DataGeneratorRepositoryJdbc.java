@@ -0,0 +1,64 @@
+package com.example.spring_22.dao.datagen;
+
+import com.example.spring_22.dao.ReservedIds;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+@RequiredArgsConstructor
+public class DataGeneratorRepositoryJdbc implements DataGeneratorRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public ReservedIds reserveIds(String sequenceName, long count) {
+        return jdbcTemplate.execute((ConnectionCallback<ReservedIds>) connection ->
+                ReservedIds.reserve(connection, sequenceName, count));
+    }
+
+    @Override
+    public void insertAuthors(List<NamedRow> authors) {
+        batchInsert("insert into author (id, full_name) values (?, ?)", authors, (ps, author) -> {
+            ps.setLong(1, author.id());
+            ps.setString(2, author.name());
+        });
+    }
+
+    @Override
+    public void insertGenres(List<NamedRow> genres) {
+        batchInsert("insert into genre (id, genre_name) values (?, ?)", genres, (ps, genre) -> {
+            ps.setLong(1, genre.id());
+            ps.setString(2, genre.name());
+        });
+    }
+
+    @Override
+    public void insertBooks(List<BookRow> books) {
+        batchInsert("insert into book (id, name, author_id) values (?, ?, ?)", books, (ps, book) -> {
+            ps.setLong(1, book.id());
+            ps.setString(2, book.name());
+            ps.setLong(3, book.authorId());
+        });
+    }
+
+    @Override
+    public void insertComments(List<CommentRow> comments) {
+        batchInsert("insert into comment (id, book_id, comment_text) values (?, ?, ?)", comments, (ps, comment) -> {
+            ps.setLong(1, comment.id());
+            ps.setLong(2, comment.bookId());
+            ps.setString(3, comment.text());
+        });
+    }
+
+    private <T> void batchInsert(String sql, List<T> rows, ParameterizedPreparedStatementSetter<T> setter) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(sql, rows, rows.size(), setter);
+    }
+}
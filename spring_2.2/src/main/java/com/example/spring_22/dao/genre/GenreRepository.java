@@ -9,4 +9,6 @@ public interface GenreRepository {
     Optional<Genre> getByName(String genreName);
 
     Genre save(Genre genre);
+
+    Genre upsertByName(String genreName);
 }
@@ -1,12 +1,12 @@
 package com.example.spring_22.dao.genre;
 
+import com.example.spring_22.dao.NaturalKeyUpsert;
 import com.example.spring_22.domain.Genre;
 import jakarta.persistence.EntityManager;
-import jakarta.persistence.TypedQuery;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.Session;
 import org.springframework.stereotype.Repository;
 
-import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -17,11 +17,9 @@ public class GenreRepositoryJpa implements GenreRepository{
 
     @Override
     public Optional<Genre> getByName(String genreName) {
-        TypedQuery<Genre> query = entityManager.createQuery("select g from Genre g " +
-                "where g.genreName = :genre_name", Genre.class);
-        query.setParameter("genre_name", genreName);
-        List<Genre> genres = query.getResultList();
-        return genres.isEmpty() ? Optional.empty() : Optional.of(genres.get(0));
+        return entityManager.unwrap(Session.class)
+                .bySimpleNaturalId(Genre.class)
+                .loadOptional(genreName);
     }
 
     @Override
@@ -33,4 +31,13 @@ public class GenreRepositoryJpa implements GenreRepository{
             return entityManager.merge(genre);
         }
     }
+
+    @Override
+    public Genre upsertByName(String genreName) {
+        long id = NaturalKeyUpsert.upsert(entityManager, Genre.class, "genre", "genre_name", genreName);
+        return Genre.builder()
+                .id(id)
+                .genreName(genreName)
+                .build();
+    }
 }
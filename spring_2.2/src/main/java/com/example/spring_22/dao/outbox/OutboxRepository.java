@@ -0,0 +1,34 @@
+package com.example.spring_22.dao.outbox;
+
+import com.example.spring_22.domain.OutboxEvent;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+public interface OutboxRepository {
+
+    /**
+     * Must run in the transaction of the change the events describe.
+     */
+    void appendAll(List<OutboxEvent> events);
+
+    /**
+     * Oldest undelivered events created before {@code createdBefore} first.
+     */
+    List<OutboxEvent> findUndelivered(Instant createdBefore, int limit);
+
+    List<OutboxEvent> findSince(long afterEventId, Instant createdBefore, int limit);
+
+    int markDelivered(Collection<Long> eventIds, Instant deliveredAt);
+
+    /**
+     * Deletes up to {@code limit} of the oldest events delivered before {@code deliveredBefore}.
+     */
+    int deleteDelivered(Instant deliveredBefore, int limit);
+
+    /**
+     * Deletes up to {@code limit} of the oldest events created before {@code createdBefore}, delivered or not.
+     */
+    int deleteCreatedBefore(Instant createdBefore, int limit);
+}
@@ -0,0 +1,100 @@
+package com.example.spring_22.dao.outbox;
+
+import com.example.spring_22.domain.OutboxEvent;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+@RequiredArgsConstructor
+public class OutboxRepositoryJpa implements OutboxRepository {
+
+    private static final int CHUNK_SIZE = 1000;
+
+    private final EntityManager entityManager;
+
+    /**
+     * Inserts go out as JDBC batches; every chunk is flushed and detached, so a bulk delete of many
+     * books does not keep all of its events in the persistence context.
+     */
+    @Override
+    public void appendAll(List<OutboxEvent> events) {
+        for (int from = 0; from < events.size(); from += CHUNK_SIZE) {
+            List<OutboxEvent> chunk = events.subList(from, Math.min(from + CHUNK_SIZE, events.size()));
+            chunk.forEach(entityManager::persist);
+            entityManager.flush();
+            chunk.forEach(entityManager::detach);
+        }
+    }
+
+    @Override
+    public List<OutboxEvent> findUndelivered(Instant createdBefore, int limit) {
+        return entityManager.createQuery("select e from OutboxEvent e " +
+                        "where e.deliveredAt is null and e.createdAt < :createdBefore " +
+                        "order by e.id", OutboxEvent.class)
+                .setParameter("createdBefore", createdBefore)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    @Override
+    public List<OutboxEvent> findSince(long afterEventId, Instant createdBefore, int limit) {
+        return entityManager.createQuery("select e from OutboxEvent e " +
+                        "where e.id > :afterId and e.createdAt < :createdBefore " +
+                        "order by e.id", OutboxEvent.class)
+                .setParameter("afterId", afterEventId)
+                .setParameter("createdBefore", createdBefore)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    @Override
+    public int markDelivered(Collection<Long> eventIds, Instant deliveredAt) {
+        List<Long> ids = new ArrayList<>(eventIds);
+        int updated = 0;
+        for (int from = 0; from < ids.size(); from += CHUNK_SIZE) {
+            updated += entityManager.createQuery("update OutboxEvent e " +
+                            "set e.deliveredAt = :deliveredAt " +
+                            "where e.id in :ids")
+                    .setParameter("deliveredAt", deliveredAt)
+                    .setParameter("ids", ids.subList(from, Math.min(from + CHUNK_SIZE, ids.size())))
+                    .executeUpdate();
+        }
+        return updated;
+    }
+
+    @Override
+    public int deleteDelivered(Instant deliveredBefore, int limit) {
+        return deleteIds(entityManager.createQuery("select e.id from OutboxEvent e " +
+                        "where e.deliveredAt < :deliveredBefore " +
+                        "order by e.id", Long.class)
+                .setParameter("deliveredBefore", deliveredBefore)
+                .setMaxResults(limit)
+                .getResultList());
+    }
+
+    @Override
+    public int deleteCreatedBefore(Instant createdBefore, int limit) {
+        return deleteIds(entityManager.createQuery("select e.id from OutboxEvent e " +
+                        "where e.createdAt < :createdBefore " +
+                        "order by e.id", Long.class)
+                .setParameter("createdBefore", createdBefore)
+                .setMaxResults(limit)
+                .getResultList());
+    }
+
+    private int deleteIds(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        return entityManager.createQuery("delete from OutboxEvent e " +
+                        "where e.id in :ids")
+                .setParameter("ids", ids)
+                .executeUpdate();
+    }
+}
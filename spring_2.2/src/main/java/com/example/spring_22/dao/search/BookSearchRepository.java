@@ -0,0 +1,8 @@
+package com.example.spring_22.dao.search;
+
+import java.util.List;
+
+public interface BookSearchRepository {
+
+    List<SearchHit> search(List<String> terms, int offset, int limit);
+}
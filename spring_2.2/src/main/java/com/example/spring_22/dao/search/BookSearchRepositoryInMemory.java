@@ -0,0 +1,209 @@
+package com.example.spring_22.dao.search;
+
+import com.example.spring_22.services.events.BookChangedEvent;
+import com.example.spring_22.services.events.BooksDeletedEvent;
+import com.example.spring_22.services.events.BooksImportedEvent;
+import com.example.spring_22.services.events.CommentChangedEvent;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import lombok.RequiredArgsConstructor;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Inverted index fallback for databases without full-text search. It is built from the database on
+ * the first search. A book or comment change only marks its book, and the next search re-reads and
+ * re-indexes the marked books; bulk imports and deletions rebuild the whole index instead.
+ * Searches running while books are re-indexed may see some of their terms already changed.
+ */
+@RequiredArgsConstructor
+public class BookSearchRepositoryInMemory implements BookSearchRepository {
+
+    private static final int REINDEX_BATCH_SIZE = 1000;
+
+    private final EntityManager entityManager;
+
+    private final Lock rebuildLock = new ReentrantLock();
+
+    private final Set<Long> changedBooks = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean stale = true;
+
+    private Map<String, Map<Long, Double>> postings = Map.of();
+
+    private Map<Long, String> bookNames = Map.of();
+
+    /**
+     * Terms and scores every book contributed, so a re-indexed book can take its old postings back.
+     */
+    private Map<Long, Map<String, Double>> bookTerms = Map.of();
+
+    @Override
+    public List<SearchHit> search(List<String> terms, int offset, int limit) {
+        if (terms.isEmpty()) {
+            return List.of();
+        }
+        Map<String, Map<Long, Double>> currentPostings;
+        Map<Long, String> currentBookNames;
+        rebuildLock.lock();
+        try {
+            if (stale) {
+                stale = false;
+                changedBooks.clear();
+                try {
+                    rebuild();
+                } catch (RuntimeException e) {
+                    stale = true;
+                    throw e;
+                }
+            } else if (!changedBooks.isEmpty()) {
+                reindexChanged();
+            }
+            currentPostings = postings;
+            currentBookNames = bookNames;
+        } finally {
+            rebuildLock.unlock();
+        }
+        Map<Long, Double> scores = new HashMap<>();
+        for (String term : terms) {
+            currentPostings.getOrDefault(term, Map.of())
+                    .forEach((bookId, score) -> scores.merge(bookId, score, Double::sum));
+        }
+        return scores.entrySet().stream()
+                .sorted(Map.Entry.<Long, Double>comparingByValue(Comparator.reverseOrder())
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .skip(offset)
+                .limit(limit)
+                .map(entry -> new SearchHit(entry.getKey(), currentBookNames.get(entry.getKey()), entry.getValue()))
+                .toList();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChanged(BookChangedEvent event) {
+        changedBooks.add(event.bookId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCommentChanged(CommentChangedEvent event) {
+        if (event.bookId() != null) {
+            changedBooks.add(event.bookId());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBooksImported(BooksImportedEvent event) {
+        stale = true;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBooksDeleted(BooksDeletedEvent event) {
+        stale = true;
+    }
+
+    private void rebuild() {
+        Map<Long, String> newBookNames = new ConcurrentHashMap<>();
+        Map<Long, Map<String, Double>> newBookTerms = new HashMap<>();
+        load(null, newBookNames, newBookTerms);
+        Map<String, Map<Long, Double>> newPostings = new ConcurrentHashMap<>();
+        newBookTerms.forEach((bookId, scores) -> add(newPostings, bookId, scores));
+        postings = newPostings;
+        bookNames = newBookNames;
+        bookTerms = newBookTerms;
+    }
+
+    /**
+     * Marks are taken before the books are read, so a change committed during the read is marked again.
+     */
+    private void reindexChanged() {
+        List<Long> bookIds = new ArrayList<>(changedBooks);
+        changedBooks.removeAll(bookIds);
+        try {
+            for (int from = 0; from < bookIds.size(); from += REINDEX_BATCH_SIZE) {
+                List<Long> batch = bookIds.subList(from, Math.min(from + REINDEX_BATCH_SIZE, bookIds.size()));
+                Map<Long, String> names = new HashMap<>();
+                Map<Long, Map<String, Double>> terms = new HashMap<>();
+                load(batch, names, terms);
+                for (Long bookId : batch) {
+                    remove(bookId);
+                    if (names.containsKey(bookId)) {
+                        bookNames.put(bookId, names.get(bookId));
+                        Map<String, Double> scores = terms.getOrDefault(bookId, Map.of());
+                        bookTerms.put(bookId, scores);
+                        add(postings, bookId, scores);
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            changedBooks.addAll(bookIds);
+            throw e;
+        }
+    }
+
+    private void remove(Long bookId) {
+        bookNames.remove(bookId);
+        Map<String, Double> scores = bookTerms.remove(bookId);
+        if (scores == null) {
+            return;
+        }
+        for (String term : scores.keySet()) {
+            postings.computeIfPresent(term, (key, books) -> {
+                books.remove(bookId);
+                return books.isEmpty() ? null : books;
+            });
+        }
+    }
+
+    private static void add(Map<String, Map<Long, Double>> target, Long bookId, Map<String, Double> scores) {
+        scores.forEach((term, score) -> target.computeIfAbsent(term, key -> new ConcurrentHashMap<>())
+                .put(bookId, score));
+    }
+
+    /**
+     * Reads the given books, or all books when {@code bookIds} is null.
+     */
+    private void load(List<Long> bookIds, Map<Long, String> names, Map<Long, Map<String, Double>> terms) {
+        String books = bookIds == null ? "" : " where b.id in :bookIds";
+        try (Stream<Object[]> rows = rows("select b.id, b.name from Book b" + books, bookIds)) {
+            rows.forEach(row -> {
+                names.put((Long) row[0], (String) row[1]);
+                index(terms, (Long) row[0], (String) row[1], SearchTerms.NAME_WEIGHT);
+            });
+        }
+        try (Stream<Object[]> rows = rows("select b.id, a.fullName from Book b join b.author a" + books, bookIds)) {
+            rows.forEach(row -> index(terms, (Long) row[0], (String) row[1], SearchTerms.AUTHOR_WEIGHT));
+        }
+        try (Stream<Object[]> rows = rows("select b.id, g.genreName from Book b join b.genres g" + books, bookIds)) {
+            rows.forEach(row -> index(terms, (Long) row[0], (String) row[1], SearchTerms.GENRE_WEIGHT));
+        }
+        String comments = bookIds == null ? "" : " and c.book.id in :bookIds";
+        try (Stream<Object[]> rows = rows("select c.book.id, c.text from Comment c where c.book is not null"
+                + comments, bookIds)) {
+            rows.forEach(row -> index(terms, (Long) row[0], (String) row[1], SearchTerms.COMMENT_WEIGHT));
+        }
+    }
+
+    private Stream<Object[]> rows(String jpql, List<Long> bookIds) {
+        TypedQuery<Object[]> query = entityManager.createQuery(jpql, Object[].class);
+        if (bookIds != null) {
+            query.setParameter("bookIds", bookIds);
+        }
+        return query.getResultStream();
+    }
+
+    private void index(Map<Long, Map<String, Double>> target, long bookId, String text, double weight) {
+        for (String term : SearchTerms.parse(text)) {
+            target.computeIfAbsent(bookId, key -> new HashMap<>())
+                    .merge(term, weight, Double::sum);
+        }
+    }
+}
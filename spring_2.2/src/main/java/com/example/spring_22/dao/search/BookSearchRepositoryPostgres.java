@@ -0,0 +1,55 @@
+package com.example.spring_22.dao.search;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.util.List;
+
+/**
+ * Ranks books with PostgreSQL full-text search. Every {@code to_tsvector('simple', ...)} expression here
+ * matches a GIN expression index from migration 0008, so each branch is an index lookup.
+ */
+@RequiredArgsConstructor
+public class BookSearchRepositoryPostgres implements BookSearchRepository {
+
+    private static final String SEARCH_SQL = "with q as (select to_tsquery('simple', :query) as query), " +
+            "matches as (" +
+            "select b.id as book_id, ts_rank(to_tsvector('simple', b.name), q.query) * :nameWeight as score " +
+            "from book b, q where to_tsvector('simple', b.name) @@ q.query " +
+            "union all " +
+            "select b.id, ts_rank(to_tsvector('simple', a.full_name), q.query) * :authorWeight " +
+            "from author a join book b on b.author_id = a.id, q " +
+            "where to_tsvector('simple', a.full_name) @@ q.query " +
+            "union all " +
+            "select bg.book_id, ts_rank(to_tsvector('simple', g.genre_name), q.query) * :genreWeight " +
+            "from genre g join book_genre bg on bg.genre_id = g.id, q " +
+            "where to_tsvector('simple', g.genre_name) @@ q.query " +
+            "union all " +
+            "select c.book_id, ts_rank(to_tsvector('simple', c.comment_text), q.query) * :commentWeight " +
+            "from comment c, q where to_tsvector('simple', c.comment_text) @@ q.query and c.book_id is not null) " +
+            "select m.book_id, b.name, sum(m.score) as score " +
+            "from matches m join book b on b.id = m.book_id " +
+            "group by m.book_id, b.name " +
+            "order by score desc, m.book_id " +
+            "limit :limit offset :offset";
+
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Override
+    public List<SearchHit> search(List<String> terms, int offset, int limit) {
+        if (terms.isEmpty()) {
+            return List.of();
+        }
+        MapSqlParameterSource parameters = new MapSqlParameterSource()
+                .addValue("query", String.join(" | ", terms))
+                .addValue("nameWeight", SearchTerms.NAME_WEIGHT)
+                .addValue("authorWeight", SearchTerms.AUTHOR_WEIGHT)
+                .addValue("genreWeight", SearchTerms.GENRE_WEIGHT)
+                .addValue("commentWeight", SearchTerms.COMMENT_WEIGHT)
+                .addValue("limit", limit)
+                .addValue("offset", offset);
+        return namedParameterJdbcTemplate.query(SEARCH_SQL, parameters,
+                (rs, rowNum) -> new SearchHit(rs.getLong("book_id"), rs.getString("name"), rs.getDouble("score")));
+    }
+}
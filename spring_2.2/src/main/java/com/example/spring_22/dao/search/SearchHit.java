@@ -0,0 +1,4 @@
+package com.example.spring_22.dao.search;
+
+public record SearchHit(long bookId, String bookName, double score) {
+}
@@ -0,0 +1,37 @@
+package com.example.spring_22.dao.search;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+public final class SearchTerms {
+
+    public static final double NAME_WEIGHT = 1.0;
+
+    public static final double AUTHOR_WEIGHT = 0.8;
+
+    public static final double GENRE_WEIGHT = 0.4;
+
+    public static final double COMMENT_WEIGHT = 0.2;
+
+    private static final Pattern SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private SearchTerms() {
+    }
+
+    public static List<String> parse(String text) {
+        if (text == null) {
+            return List.of();
+        }
+        Set<String> terms = new LinkedHashSet<>();
+        for (String term : SEPARATOR.split(text.toLowerCase(Locale.ROOT))) {
+            if (!term.isEmpty()) {
+                terms.add(term);
+            }
+        }
+        return new ArrayList<>(terms);
+    }
+}
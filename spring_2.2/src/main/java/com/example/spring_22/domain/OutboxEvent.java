@@ -0,0 +1,54 @@
+package com.example.spring_22.domain;
+
+import com.example.spring_22.services.events.ChangeType;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * A committed change of a book or comment, written in the same transaction as the change itself.
+ * {@code bookId} is the book the change belongs to and orders delivery; it is null for a comment
+ * without a book.
+ */
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "outbox_event")
+@Data
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_event_seq")
+    @SequenceGenerator(name = "outbox_event_seq", sequenceName = "outbox_event_seq", allocationSize = 50)
+    private long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "aggregate_type", length = 16, nullable = false)
+    private AggregateType aggregateType;
+
+    @Column(name = "aggregate_id", nullable = false)
+    private long aggregateId;
+
+    @Column(name = "book_id")
+    private Long bookId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "change_type", length = 16, nullable = false)
+    private ChangeType changeType;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    @Column(name = "delivered_at")
+    private Instant deliveredAt;
+
+    public enum AggregateType {
+        BOOK,
+        COMMENT
+    }
+}
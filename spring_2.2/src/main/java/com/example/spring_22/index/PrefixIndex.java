@@ -0,0 +1,562 @@
+package com.example.spring_22.index;
+
+import com.example.spring_22.dao.search.SearchTerms;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+
+/**
+ * Immutable prefix index over book names and author names. Terms are kept once each in sorted blocks of at
+ * most {@value #BLOCK_SIZE}, so a prefix is a contiguous run found by binary search, and every term points to
+ * a sorted {@code long[]} of book ids. Books are kept in blocks the same way. A change copies only the blocks
+ * it touches and the directories of block references; every other block is shared with the previous index.
+ */
+public final class PrefixIndex {
+
+    private static final int BLOCK_SIZE = 128;
+
+    private static final long[] NO_BOOKS = new long[0];
+
+    private static final int REFERENCE_BYTES = 4;
+
+    private static final int HEADER_BYTES = 16;
+
+    private static final PrefixIndex EMPTY = new PrefixIndex(new TermBlock[0], new BookBlock[0]);
+
+    private final TermBlock[] termBlocks;
+
+    private final BookBlock[] bookBlocks;
+
+    private PrefixIndex(TermBlock[] termBlocks, BookBlock[] bookBlocks) {
+        this.termBlocks = termBlocks;
+        this.bookBlocks = bookBlocks;
+    }
+
+    public static PrefixIndex empty() {
+        return EMPTY;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Every term of the query must be a prefix of a term of the book name or of its author name.
+     */
+    public List<PrefixMatch> search(String query, int limit) {
+        List<String> prefixes = SearchTerms.parse(query);
+        if (prefixes.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        long[] found = null;
+        for (String prefix : prefixes) {
+            long[] books = booksByPrefix(prefix);
+            found = found == null ? books : intersect(found, books);
+            if (found.length == 0) {
+                return List.of();
+            }
+        }
+        List<PrefixMatch> matches = new ArrayList<>(Math.min(limit, found.length));
+        for (int i = 0; i < found.length && matches.size() < limit; i++) {
+            BookBlock block = bookBlocks[bookBlockOf(found[i])];
+            int book = Arrays.binarySearch(block.ids, found[i]);
+            matches.add(new PrefixMatch(found[i], block.bookNames[book], block.authorNames[book]));
+        }
+        return matches;
+    }
+
+    public PrefixIndex with(long bookId, String bookName, String authorName) {
+        return change(bookId, new Document(bookName, authorName));
+    }
+
+    public PrefixIndex without(long bookId) {
+        if (documentOf(bookId) == null) {
+            return this;
+        }
+        return change(bookId, null);
+    }
+
+    public Footprint footprint() {
+        int terms = 0;
+        int books = 0;
+        long postingEntries = 0;
+        long bytes = arrayBytes(termBlocks.length, REFERENCE_BYTES) + arrayBytes(bookBlocks.length, REFERENCE_BYTES);
+        for (TermBlock block : termBlocks) {
+            terms += block.terms.length;
+            bytes += align(HEADER_BYTES + 2 * REFERENCE_BYTES) + arrayBytes(block.terms.length, REFERENCE_BYTES)
+                    + arrayBytes(block.postings.length, REFERENCE_BYTES);
+            for (int i = 0; i < block.terms.length; i++) {
+                postingEntries += block.postings[i].length;
+                bytes += stringBytes(block.terms[i]) + arrayBytes(block.postings[i].length, Long.BYTES);
+            }
+        }
+        for (BookBlock block : bookBlocks) {
+            books += block.ids.length;
+            bytes += align(HEADER_BYTES + 3 * REFERENCE_BYTES) + arrayBytes(block.ids.length, Long.BYTES)
+                    + 2 * arrayBytes(block.ids.length, REFERENCE_BYTES);
+            for (int i = 0; i < block.ids.length; i++) {
+                bytes += stringBytes(block.bookNames[i]) + stringBytes(block.authorNames[i]);
+            }
+        }
+        return new Footprint(terms, postingEntries, books, bytes);
+    }
+
+    private long[] booksByPrefix(String prefix) {
+        List<long[]> matching = new ArrayList<>();
+        for (int block = termBlockOf(prefix); block < termBlocks.length; block++) {
+            String[] terms = termBlocks[block].terms;
+            int position = Arrays.binarySearch(terms, prefix);
+            for (int term = position >= 0 ? position : -position - 1; term < terms.length; term++) {
+                if (!terms[term].startsWith(prefix)) {
+                    return merge(matching);
+                }
+                matching.add(termBlocks[block].postings[term]);
+            }
+        }
+        return merge(matching);
+    }
+
+    private PrefixIndex change(long bookId, Document document) {
+        Document old = documentOf(bookId);
+        TreeMap<String, long[]> changedPostings = new TreeMap<>();
+        List<String> oldTerms = old != null ? old.terms() : List.of();
+        List<String> newTerms = document != null ? document.terms() : List.of();
+        for (String term : oldTerms) {
+            if (!newTerms.contains(term)) {
+                changedPostings.put(term, remove(postingsOf(term), bookId));
+            }
+        }
+        for (String term : newTerms) {
+            if (!oldTerms.contains(term)) {
+                changedPostings.put(term, add(postingsOf(term), bookId));
+            }
+        }
+        return new PrefixIndex(changedTerms(changedPostings), changedBooks(bookId, document));
+    }
+
+    private TermBlock[] changedTerms(TreeMap<String, long[]> changedPostings) {
+        if (changedPostings.isEmpty()) {
+            return termBlocks;
+        }
+        TermBlock[] blocks = termBlocks.length > 0 ? termBlocks : new TermBlock[]{TermBlock.EMPTY};
+        TreeMap<Integer, TreeMap<String, long[]>> changesByBlock = new TreeMap<>();
+        for (Map.Entry<String, long[]> changed : changedPostings.entrySet()) {
+            changesByBlock.computeIfAbsent(blockOf(blocks, changed.getKey()), block -> new TreeMap<>())
+                    .put(changed.getKey(), changed.getValue());
+        }
+        List<TermBlock> changed = new ArrayList<>(blocks.length + changesByBlock.size());
+        for (int block = 0; block < blocks.length; block++) {
+            TreeMap<String, long[]> changes = changesByBlock.get(block);
+            if (changes == null) {
+                changed.add(blocks[block]);
+            } else {
+                changed.addAll(blocks[block].apply(changes));
+            }
+        }
+        return changed.toArray(TermBlock[]::new);
+    }
+
+    private BookBlock[] changedBooks(long bookId, Document document) {
+        BookBlock[] blocks = bookBlocks.length > 0 ? bookBlocks : new BookBlock[]{BookBlock.EMPTY};
+        int block = bookBlockOf(blocks, bookId);
+        List<BookBlock> replacement = blocks[block].apply(bookId, document);
+        if (replacement.size() == 1) {
+            BookBlock[] changed = blocks.clone();
+            changed[block] = replacement.get(0);
+            return changed;
+        }
+        BookBlock[] changed = new BookBlock[blocks.length - 1 + replacement.size()];
+        System.arraycopy(blocks, 0, changed, 0, block);
+        for (int i = 0; i < replacement.size(); i++) {
+            changed[block + i] = replacement.get(i);
+        }
+        System.arraycopy(blocks, block + 1, changed, block + replacement.size(), blocks.length - block - 1);
+        return changed;
+    }
+
+    private long[] postingsOf(String term) {
+        if (termBlocks.length == 0) {
+            return NO_BOOKS;
+        }
+        TermBlock block = termBlocks[termBlockOf(term)];
+        int position = Arrays.binarySearch(block.terms, term);
+        return position >= 0 ? block.postings[position] : NO_BOOKS;
+    }
+
+    private Document documentOf(long bookId) {
+        if (bookBlocks.length == 0) {
+            return null;
+        }
+        BookBlock block = bookBlocks[bookBlockOf(bookId)];
+        int book = Arrays.binarySearch(block.ids, bookId);
+        return book >= 0 ? new Document(block.bookNames[book], block.authorNames[book]) : null;
+    }
+
+    private int termBlockOf(String term) {
+        return termBlocks.length == 0 ? 0 : blockOf(termBlocks, term);
+    }
+
+    private int bookBlockOf(long bookId) {
+        return bookBlockOf(bookBlocks, bookId);
+    }
+
+    /**
+     * The last block whose first term is not greater than the term, or the first block.
+     */
+    private static int blockOf(TermBlock[] blocks, String term) {
+        int low = 1;
+        int high = blocks.length - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (blocks[middle].terms[0].compareTo(term) <= 0) {
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return low - 1;
+    }
+
+    private static int bookBlockOf(BookBlock[] blocks, long bookId) {
+        int low = 1;
+        int high = blocks.length - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (blocks[middle].ids[0] <= bookId) {
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return low - 1;
+    }
+
+    private static long[] add(long[] books, long bookId) {
+        int position = Arrays.binarySearch(books, bookId);
+        if (position >= 0) {
+            return books;
+        }
+        position = -position - 1;
+        long[] changed = new long[books.length + 1];
+        System.arraycopy(books, 0, changed, 0, position);
+        changed[position] = bookId;
+        System.arraycopy(books, position, changed, position + 1, books.length - position);
+        return changed;
+    }
+
+    private static long[] remove(long[] books, long bookId) {
+        int position = Arrays.binarySearch(books, bookId);
+        if (position < 0) {
+            return books;
+        }
+        long[] changed = new long[books.length - 1];
+        System.arraycopy(books, 0, changed, 0, position);
+        System.arraycopy(books, position + 1, changed, position, books.length - position - 1);
+        return changed;
+    }
+
+    private static long[] intersect(long[] left, long[] right) {
+        long[] result = new long[Math.min(left.length, right.length)];
+        int size = 0;
+        for (int i = 0, j = 0; i < left.length && j < right.length; ) {
+            if (left[i] < right[j]) {
+                i++;
+            } else if (left[i] > right[j]) {
+                j++;
+            } else {
+                result[size++] = left[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    /**
+     * Unions the sorted postings of all terms of a prefix in one pass over a heap of cursors,
+     * so every entry is moved once instead of once per term merged before it.
+     */
+    private static long[] merge(List<long[]> postings) {
+        if (postings.isEmpty()) {
+            return NO_BOOKS;
+        }
+        if (postings.size() == 1) {
+            return postings.get(0);
+        }
+        int total = 0;
+        PriorityQueue<Cursor> cursors = new PriorityQueue<>(postings.size());
+        for (long[] books : postings) {
+            total += books.length;
+            if (books.length > 0) {
+                cursors.add(new Cursor(books));
+            }
+        }
+        long[] result = new long[total];
+        int size = 0;
+        while (!cursors.isEmpty()) {
+            Cursor cursor = cursors.poll();
+            long bookId = cursor.current();
+            if (size == 0 || result[size - 1] != bookId) {
+                result[size++] = bookId;
+            }
+            if (cursor.advance()) {
+                cursors.add(cursor);
+            }
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    private static long arrayBytes(long length, int elementBytes) {
+        return align(HEADER_BYTES + length * elementBytes);
+    }
+
+    private static long stringBytes(String value) {
+        if (value == null) {
+            return 0;
+        }
+        return align(24) + arrayBytes(value.length(), value.chars().allMatch(c -> c < 256) ? 1 : 2);
+    }
+
+    private static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+
+    /**
+     * Splits a run of sorted entries into blocks of at most {@value #BLOCK_SIZE} of about equal size.
+     */
+    private static int[] split(int size) {
+        int blocks = Math.max(1, (size + BLOCK_SIZE - 1) / BLOCK_SIZE);
+        int[] bounds = new int[blocks + 1];
+        for (int block = 0; block <= blocks; block++) {
+            bounds[block] = (int) ((long) size * block / blocks);
+        }
+        return bounds;
+    }
+
+    public record PrefixMatch(long bookId, String bookName, String authorName) {
+    }
+
+    /**
+     * Estimated retained heap, assuming compressed references and compact strings.
+     */
+    public record Footprint(int terms, long postingEntries, int books, long estimatedBytes) {
+    }
+
+    private record Document(String bookName, String authorName) {
+
+        private List<String> terms() {
+            List<String> terms = new ArrayList<>(SearchTerms.parse(bookName));
+            for (String term : SearchTerms.parse(authorName)) {
+                if (!terms.contains(term)) {
+                    terms.add(term);
+                }
+            }
+            return terms;
+        }
+    }
+
+    private record TermBlock(String[] terms, long[][] postings) {
+
+        private static final TermBlock EMPTY = new TermBlock(new String[0], new long[0][]);
+
+        /**
+         * Applies the changed postings of terms that fall into this block; empty postings drop the term.
+         */
+        private List<TermBlock> apply(TreeMap<String, long[]> changes) {
+            List<String> mergedTerms = new ArrayList<>(terms.length + changes.size());
+            List<long[]> mergedPostings = new ArrayList<>(terms.length + changes.size());
+            int term = 0;
+            for (Map.Entry<String, long[]> changed : changes.entrySet()) {
+                while (term < terms.length && terms[term].compareTo(changed.getKey()) < 0) {
+                    mergedTerms.add(terms[term]);
+                    mergedPostings.add(postings[term]);
+                    term++;
+                }
+                boolean existing = term < terms.length && terms[term].equals(changed.getKey());
+                if (changed.getValue().length > 0) {
+                    mergedTerms.add(existing ? terms[term] : changed.getKey());
+                    mergedPostings.add(changed.getValue());
+                }
+                if (existing) {
+                    term++;
+                }
+            }
+            while (term < terms.length) {
+                mergedTerms.add(terms[term]);
+                mergedPostings.add(postings[term]);
+                term++;
+            }
+            if (mergedTerms.isEmpty()) {
+                return List.of();
+            }
+            return of(mergedTerms.toArray(String[]::new), mergedPostings.toArray(long[][]::new));
+        }
+
+        private static List<TermBlock> of(String[] terms, long[][] postings) {
+            int[] bounds = split(terms.length);
+            List<TermBlock> blocks = new ArrayList<>(bounds.length - 1);
+            for (int block = 0; block < bounds.length - 1; block++) {
+                blocks.add(new TermBlock(Arrays.copyOfRange(terms, bounds[block], bounds[block + 1]),
+                        Arrays.copyOfRange(postings, bounds[block], bounds[block + 1])));
+            }
+            return blocks;
+        }
+    }
+
+    private record BookBlock(long[] ids, String[] bookNames, String[] authorNames) {
+
+        private static final BookBlock EMPTY = new BookBlock(NO_BOOKS, new String[0], new String[0]);
+
+        /**
+         * Replaces, adds or, when the document is null, removes the book.
+         */
+        private List<BookBlock> apply(long bookId, Document document) {
+            int book = Arrays.binarySearch(ids, bookId);
+            if (book >= 0 && document != null) {
+                String[] changedNames = bookNames.clone();
+                String[] changedAuthors = authorNames.clone();
+                changedNames[book] = document.bookName();
+                changedAuthors[book] = document.authorName();
+                return List.of(new BookBlock(ids, changedNames, changedAuthors));
+            }
+            if (book >= 0) {
+                if (ids.length == 1) {
+                    return List.of();
+                }
+                return List.of(new BookBlock(remove(ids, bookId), removeAt(bookNames, book),
+                        removeAt(authorNames, book)));
+            }
+            if (document == null) {
+                return List.of(this);
+            }
+            int position = -book - 1;
+            return of(add(ids, bookId), insertAt(bookNames, position, document.bookName()),
+                    insertAt(authorNames, position, document.authorName()));
+        }
+
+        private static List<BookBlock> of(long[] ids, String[] bookNames, String[] authorNames) {
+            int[] bounds = split(ids.length);
+            List<BookBlock> blocks = new ArrayList<>(bounds.length - 1);
+            for (int block = 0; block < bounds.length - 1; block++) {
+                blocks.add(new BookBlock(Arrays.copyOfRange(ids, bounds[block], bounds[block + 1]),
+                        Arrays.copyOfRange(bookNames, bounds[block], bounds[block + 1]),
+                        Arrays.copyOfRange(authorNames, bounds[block], bounds[block + 1])));
+            }
+            return blocks;
+        }
+
+        private static String[] removeAt(String[] names, int position) {
+            String[] changed = new String[names.length - 1];
+            System.arraycopy(names, 0, changed, 0, position);
+            System.arraycopy(names, position + 1, changed, position, names.length - position - 1);
+            return changed;
+        }
+
+        private static String[] insertAt(String[] names, int position, String name) {
+            String[] changed = new String[names.length + 1];
+            System.arraycopy(names, 0, changed, 0, position);
+            changed[position] = name;
+            System.arraycopy(names, position, changed, position + 1, names.length - position);
+            return changed;
+        }
+    }
+
+    private static final class Cursor implements Comparable<Cursor> {
+
+        private final long[] books;
+
+        private int position;
+
+        private Cursor(long[] books) {
+            this.books = books;
+        }
+
+        private long current() {
+            return books[position];
+        }
+
+        private boolean advance() {
+            return ++position < books.length;
+        }
+
+        @Override
+        public int compareTo(Cursor other) {
+            return Long.compare(current(), other.current());
+        }
+    }
+
+    public static final class Builder {
+
+        private final Map<String, LongList> postings = new HashMap<>();
+
+        private final Map<String, String> canonicalNames = new HashMap<>();
+
+        private final LongList bookIds = new LongList();
+
+        private final List<String> bookNames = new ArrayList<>();
+
+        private final List<String> authorNames = new ArrayList<>();
+
+        private Builder() {
+        }
+
+        /**
+         * Books must be added in ascending id order, as {@code BookRepository.streamAll} returns them.
+         */
+        public Builder add(long bookId, String bookName, String authorName) {
+            if (bookIds.size > 0 && bookIds.values[bookIds.size - 1] >= bookId) {
+                throw new IllegalArgumentException("Books must be added in ascending id order");
+            }
+            bookIds.add(bookId);
+            bookNames.add(bookName);
+            authorNames.add(canonical(authorName));
+            for (String term : new Document(bookName, authorName).terms()) {
+                postings.computeIfAbsent(term, key -> new LongList()).add(bookId);
+            }
+            return this;
+        }
+
+        public PrefixIndex build() {
+            if (bookIds.size == 0) {
+                return EMPTY;
+            }
+            String[] terms = postings.keySet().toArray(String[]::new);
+            Arrays.sort(terms);
+            long[][] termPostings = new long[terms.length][];
+            for (int i = 0; i < terms.length; i++) {
+                termPostings[i] = postings.get(terms[i]).toArray();
+            }
+            List<TermBlock> termBlocks = terms.length > 0 ? TermBlock.of(terms, termPostings) : List.of();
+            List<BookBlock> bookBlocks = BookBlock.of(bookIds.toArray(), bookNames.toArray(String[]::new),
+                    authorNames.toArray(String[]::new));
+            return new PrefixIndex(termBlocks.toArray(TermBlock[]::new), bookBlocks.toArray(BookBlock[]::new));
+        }
+
+        private String canonical(String authorName) {
+            return authorName == null ? null : canonicalNames.computeIfAbsent(authorName, name -> name);
+        }
+    }
+
+    private static final class LongList {
+
+        private long[] values = new long[4];
+
+        private int size;
+
+        private void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        private long[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.spring_22.metrics;
+
+import com.example.spring_22.config.LibraryProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Times every public repository and service call. It runs outside the transaction advice, so the
+ * timings include commit. Methods returning a {@code Stream} are timed until the stream is returned.
+ * Percentile histograms are published only for the methods listed in {@code library.metrics.histogram-methods}.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
+public class MethodMetricsAspect {
+
+    public static final String TIMER = "library.method";
+
+    public static final String ERRORS = "library.method.errors";
+
+    private final MeterRegistry meterRegistry;
+
+    private final LibraryProperties properties;
+
+    @Around("execution(public * com.example.spring_22.dao..*(..)) || execution(public * com.example.spring_22.services..*(..))")
+    public Object record(ProceedingJoinPoint joinPoint) throws Throwable {
+        String className = joinPoint.getTarget().getClass().getSimpleName();
+        String method = joinPoint.getSignature().getName();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            meterRegistry.counter(ERRORS, "class", className, "method", method,
+                    "exception", e.getClass().getSimpleName()).increment();
+            throw e;
+        } finally {
+            sample.stop(Timer.builder(TIMER)
+                    .tags("class", className, "method", method)
+                    .publishPercentiles(0.5, 0.95, 0.99)
+                    .publishPercentileHistogram(properties.getMetrics().getHistogramMethods()
+                            .contains(className + "." + method))
+                    .register(meterRegistry));
+        }
+    }
+}
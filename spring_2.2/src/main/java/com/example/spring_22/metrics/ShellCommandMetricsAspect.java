@@ -0,0 +1,55 @@
+package com.example.spring_22.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.shell.standard.ShellMethod;
+import org.springframework.stereotype.Component;
+
+/**
+ * Times shell commands and records how many JDBC statements Hibernate prepared while each one ran.
+ * The statement count comes from the global Hibernate statistics, so work running at the same time,
+ * such as the write-behind comment queue, is counted too.
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class ShellCommandMetricsAspect {
+
+    public static final String TIMER = "library.shell.command";
+
+    public static final String STATEMENTS = "library.shell.statements";
+
+    private final MeterRegistry meterRegistry;
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    @Around("@annotation(shellMethod)")
+    public Object record(ProceedingJoinPoint joinPoint, ShellMethod shellMethod) throws Throwable {
+        String command = shellMethod.key().length > 0 ? shellMethod.key()[0] : joinPoint.getSignature().getName();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        long statementsBefore = statistics.getPrepareStatementCount();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            return joinPoint.proceed();
+        } finally {
+            sample.stop(Timer.builder(TIMER)
+                    .tag("command", command)
+                    .publishPercentiles(0.5, 0.95, 0.99)
+                    .register(meterRegistry));
+            if (statistics.isStatisticsEnabled()) {
+                DistributionSummary.builder(STATEMENTS)
+                        .tag("command", command)
+                        .register(meterRegistry)
+                        .record(statistics.getPrepareStatementCount() - statementsBefore);
+            }
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.spring_22.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Registered through {@code hibernate.session_factory.statement_inspector}; feeds every prepared
+ * statement to the open {@link StatementScope}s of the calling thread. Hibernate only inspects the SQL
+ * it generates itself, so code preparing statements on a raw {@link java.sql.Connection} records them
+ * with {@link StatementScope#record} instead.
+ */
+public class StatementCountingInspector implements StatementInspector {
+
+    @Override
+    public String inspect(String sql) {
+        StatementScope.record(sql);
+        return sql;
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.spring_22.metrics;
+
+import com.example.spring_22.config.LibraryProperties;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.shell.standard.ShellMethod;
+import org.springframework.stereotype.Component;
+
+/**
+ * Opens a {@link StatementScope} around every shell command and service call. Runs outside the
+ * transaction advice, so statements flushed on commit are counted. Repeated identical statements are
+ * reported once, by the outermost scope of the thread.
+ */
+@Slf4j
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+@RequiredArgsConstructor
+public class StatementInspectionAspect {
+
+    private final LibraryProperties properties;
+
+    @Around("@annotation(org.springframework.shell.standard.ShellMethod) || execution(public * com.example.spring_22.services..*(..))")
+    public Object inspect(ProceedingJoinPoint joinPoint) throws Throwable {
+        StatementScope scope = StatementScope.open(scopeName(joinPoint));
+        try {
+            return joinPoint.proceed();
+        } finally {
+            scope.close();
+            report(scope);
+        }
+    }
+
+    private void report(StatementScope scope) {
+        log.debug("{} prepared {} statements", scope.name(), scope.statementCount());
+        int threshold = properties.getDiagnostics().getRepeatedStatementThreshold();
+        if (!scope.isOutermost() || threshold <= 0) {
+            return;
+        }
+        scope.repeatedStatements(threshold).forEach((sql, times) ->
+                log.warn("Suspected N+1 in {}: statement prepared {} times: {}", scope.name(), times, sql));
+    }
+
+    private String scopeName(ProceedingJoinPoint joinPoint) {
+        ShellMethod shellMethod = ((MethodSignature) joinPoint.getSignature()).getMethod()
+                .getAnnotation(ShellMethod.class);
+        if (shellMethod != null && shellMethod.key().length > 0) {
+            return "shell " + shellMethod.key()[0];
+        }
+        return joinPoint.getTarget().getClass().getSimpleName() + "." + joinPoint.getSignature().getName();
+    }
+}
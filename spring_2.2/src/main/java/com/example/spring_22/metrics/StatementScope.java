@@ -0,0 +1,88 @@
+package com.example.spring_22.metrics;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Counts the SQL statements prepared on the current thread while the scope is open. Scopes nest, and a
+ * statement is counted in every open scope of its thread. Hibernate statements arrive through
+ * {@link StatementCountingInspector}; JDBC work that bypasses Hibernate is counted only where it calls
+ * {@link #record}, as the author and genre upserts do, so the {@code JdbcTemplate} repositories are not.
+ */
+public final class StatementScope implements AutoCloseable {
+
+    private static final ThreadLocal<StatementScope> CURRENT = new ThreadLocal<>();
+
+    private final String name;
+
+    private final StatementScope parent;
+
+    private final Map<String, Integer> statements = new LinkedHashMap<>();
+
+    private int statementCount;
+
+    private boolean closed;
+
+    private StatementScope(String name, StatementScope parent) {
+        this.name = name;
+        this.parent = parent;
+    }
+
+    public static StatementScope open(String name) {
+        StatementScope scope = new StatementScope(name, CURRENT.get());
+        CURRENT.set(scope);
+        return scope;
+    }
+
+    public static void record(String sql) {
+        for (StatementScope scope = CURRENT.get(); scope != null; scope = scope.parent) {
+            scope.statementCount++;
+            scope.statements.merge(sql, 1, Integer::sum);
+        }
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public boolean isOutermost() {
+        return parent == null;
+    }
+
+    public int statementCount() {
+        return statementCount;
+    }
+
+    /**
+     * Distinct statements in preparation order with the number of times each was prepared.
+     */
+    public Map<String, Integer> statements() {
+        return Collections.unmodifiableMap(new LinkedHashMap<>(statements));
+    }
+
+    public Map<String, Integer> repeatedStatements(int threshold) {
+        Map<String, Integer> repeated = new LinkedHashMap<>();
+        statements.forEach((sql, times) -> {
+            if (times >= threshold) {
+                repeated.put(sql, times);
+            }
+        });
+        return repeated;
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (CURRENT.get() == this) {
+            if (parent == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(parent);
+            }
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.spring_22.retry;
+
+import com.example.spring_22.config.LibraryProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Retries {@link RetryOnConflict} methods with exponential backoff and full jitter, so conflicting writers
+ * spread out instead of colliding again. It runs outside the transaction advice, so every attempt gets its
+ * own transaction; a call joining an outer transaction is not retried, as that transaction is already
+ * marked for rollback.
+ */
+@Slf4j
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 2)
+@RequiredArgsConstructor
+public class ConflictRetryAspect {
+
+    public static final String CONFLICTS = "library.retry.conflicts";
+
+    private final LibraryProperties properties;
+
+    private final MeterRegistry meterRegistry;
+
+    @Around("@annotation(com.example.spring_22.retry.RetryOnConflict)")
+    public Object retry(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return joinPoint.proceed();
+        }
+        LibraryProperties.Retry retry = properties.getRetry();
+        String method = joinPoint.getSignature().getName();
+        long backoffMillis = retry.getInitialBackoff().toMillis();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return joinPoint.proceed();
+            } catch (OptimisticLockingFailureException e) {
+                meterRegistry.counter(CONFLICTS, "method", method,
+                        "outcome", attempt < retry.getMaxAttempts() ? "retried" : "exhausted").increment();
+                if (attempt >= retry.getMaxAttempts()) {
+                    throw e;
+                }
+                long sleepMillis = ThreadLocalRandom.current().nextLong(backoffMillis + 1);
+                log.debug("Conflict in {}, attempt {} of {}, retrying in {} ms",
+                        method, attempt, retry.getMaxAttempts(), sleepMillis);
+                Thread.sleep(sleepMillis);
+                backoffMillis = Math.min(retry.getMaxBackoff().toMillis(),
+                        (long) (backoffMillis * retry.getMultiplier()));
+            }
+        }
+    }
+}
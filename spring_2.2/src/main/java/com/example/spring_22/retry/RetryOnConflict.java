@@ -0,0 +1,15 @@
+package com.example.spring_22.retry;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Runs the method again in a new transaction when it fails on an optimistic lock conflict.
+ * The method must be safe to repeat from the start.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RetryOnConflict {
+}
@@ -1,5 +1,6 @@
 package com.example.spring_22.services.author;
 
+import com.example.spring_22.cache.LookupCache;
 import com.example.spring_22.dao.author.AuthorRepository;
 import com.example.spring_22.domain.Author;
 import lombok.RequiredArgsConstructor;
@@ -12,9 +13,17 @@ public class AuthorServiceImpl implements AuthorService{
 
     private final AuthorRepository authorRepository;
 
+    private final LookupCache<Author> authorCache;
+
     @Override
     @Transactional
     public Author saveAuthorIfNotExists(Author author) {
-        return authorRepository.getByFullName(author.getFullName()).orElse(authorRepository.save(author));
+        var cachedAuthor = authorCache.get(author.getFullName());
+        if (cachedAuthor.isPresent()) {
+            return cachedAuthor.get();
+        }
+        var savedAuthor = authorRepository.upsertByFullName(author.getFullName());
+        authorCache.put(author.getFullName(), savedAuthor);
+        return savedAuthor;
     }
 }
@@ -0,0 +1,17 @@
+package com.example.spring_22.services.book;
+
+import com.example.spring_22.domain.Author;
+import com.example.spring_22.domain.Genre;
+import lombok.Builder;
+
+import java.util.Set;
+
+/**
+ * Changes to one book. A null name, author or genre set leaves that field as it is; {@code removeAuthor}
+ * clears the author and an empty genre set removes every genre. A non-null {@code expectedVersion} makes
+ * the patch fail if the book was changed since that version was read.
+ */
+@Builder
+public record BookPatch(long bookId, Long expectedVersion, String name, Author author, boolean removeAuthor,
+                        Set<Genre> genres) {
+}
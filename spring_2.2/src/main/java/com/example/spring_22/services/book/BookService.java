@@ -1,19 +1,40 @@
 package com.example.spring_22.services.book;
 
 
+import com.example.spring_22.dao.MultiGetResult;
+import com.example.spring_22.dao.book.BookFilter;
 import com.example.spring_22.domain.Book;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface BookService {
     long saveBook(Book book);
 
     Optional<Book> getBookById(long id);
 
-    List<Book> getAllBooks();
+    MultiGetResult<Book> getBooksByIds(Collection<Long> ids);
 
+    void getAllBooks(Consumer<Book> bookConsumer);
+
+    List<Book> getBooksPage(long afterId, int limit);
+
+    /**
+     * Fails with an optimistic locking exception when the book is no longer at {@code book.getVersion()}.
+     */
     void updateBookById(Book book);
 
+    /**
+     * Applies {@code edit} to a copy of the current book and saves it at the version it was read at; on a
+     * conflict the book is read again and the edit re-applied.
+     */
+    void editBookById(long id, Consumer<Book> edit);
+
+    void patchBook(BookPatch patch);
+
     void deleteBookById(long id);
+
+    BulkDeleteResult deleteBooks(BookFilter filter);
 }
@@ -1,18 +1,33 @@
 package com.example.spring_22.services.book;
 
+import com.example.spring_22.config.LibraryProperties;
+import com.example.spring_22.dao.MultiGetResult;
+import com.example.spring_22.dao.book.BookFilter;
 import com.example.spring_22.dao.book.BookRepository;
-import com.example.spring_22.domain.Author;
+import com.example.spring_22.dao.book.BookRepository.BookChanges;
+import com.example.spring_22.dao.book.BookRepository.DeletedRows;
 import com.example.spring_22.domain.Book;
 import com.example.spring_22.domain.Genre;
+import com.example.spring_22.retry.RetryOnConflict;
 import com.example.spring_22.services.author.AuthorService;
+import com.example.spring_22.services.events.BookChangedEvent;
+import com.example.spring_22.services.events.BooksDeletedEvent;
+import com.example.spring_22.services.events.ChangeType;
 import com.example.spring_22.services.genre.GenreService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.HashSet;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static java.util.Objects.isNull;
 import static java.util.Objects.nonNull;
@@ -28,6 +43,10 @@ public class BookServiceImpl implements BookService {
 
     private final GenreService genreService;
 
+    private final LibraryProperties properties;
+
+    private final ApplicationEventPublisher eventPublisher;
+
     @Override
     @Transactional
     public long saveBook(Book book) {
@@ -35,74 +54,112 @@ public class BookServiceImpl implements BookService {
         var bookId = bookRepository.save(bookToSaveInRepository).getId();
         var authorId = authorService.saveAuthorIfNotExists(book.getAuthor());
         bookRepository.updateAuthor(bookId, authorId);
-        saveGenres(bookId, book.getGenres());
+        if (!isEmpty(book.getGenres())) {
+            bookRepository.replaceGenres(bookId, saveGenres(book.getGenres()));
+        }
+        eventPublisher.publishEvent(new BookChangedEvent(bookId, ChangeType.CREATED));
         return bookId;
     }
 
-    private void saveGenres(long bookId, List<Genre> genres) {
-        if (!isEmpty(genres)) {
-            genres.forEach(genre -> saveGenre(genre, bookId));
+    private Set<Long> saveGenres(Set<Genre> genres) {
+        if (isEmpty(genres)) {
+            return Set.of();
         }
+        return genres.stream()
+                .map(genreService::saveGenreIfNotExists)
+                .map(Genre::getId)
+                .collect(Collectors.toSet());
     }
 
-    private void saveGenre(Genre genre, long bookId) {
-        bookRepository.addGenreToBook(bookId, genreService.saveGenreIfNotExists(genre));
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<Book> getBookById(long bookId) {
+        return bookRepository.findWithAuthorAndGenresById(bookId);
     }
 
     @Override
-    public Optional<Book> getBookById(long bookId) {
-        return bookRepository.findById(bookId);
+    @Transactional(readOnly = true)
+    public MultiGetResult<Book> getBooksByIds(Collection<Long> ids) {
+        return bookRepository.findAllByIds(ids, properties.getMultiGet().getChunkSize());
     }
 
     @Override
-    public List<Book> getAllBooks() {
-        return bookRepository.findAll();
+    @Transactional(readOnly = true)
+    public void getAllBooks(Consumer<Book> bookConsumer) {
+        try (Stream<Book> books = bookRepository.streamAll(properties.getBooks().getFetchSize())) {
+            books.forEach(bookConsumer);
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Book> getBooksPage(long afterId, int limit) {
+        return bookRepository.findPage(afterId, limit);
     }
 
     @Override
     @Transactional
     public void updateBookById(Book newBook) {
-        var oldBookOptional = getBookById(newBook.getId());
-        if (oldBookOptional.isEmpty()) {
-            throw new IllegalArgumentException("There is no book with such id");
-        }
-        var oldBook = oldBookOptional.get();
-        if ((nonNull(oldBook.getName()) && (isNull(newBook.getName()) || !oldBook.getName().equals(newBook.getName()))) ||
-                (isNull(oldBook.getName()) && nonNull(newBook.getName()))) {
-            bookRepository.updateNameById(newBook.getId(), newBook.getName());
-        }
-        if ((nonNull(oldBook.getAuthor()) &&
-                (isNull(newBook.getAuthor()) || !oldBook.getAuthor().getFullName().equals(newBook.getAuthor().getFullName())))
-                || (isNull(oldBook.getAuthor()) && nonNull(newBook.getAuthor()))) {
-            Author author;
-            if (isNull(newBook.getAuthor())) {
-                author = null;
-            } else {
-                author = authorService.saveAuthorIfNotExists(newBook.getAuthor());
-            }
-            bookRepository.updateAuthor(newBook.getId(), author);
-        }
-        if (!(oldBook.getGenres().size() == newBook.getGenres().size() && new HashSet<>(oldBook.getGenres()).containsAll(newBook.getGenres()))) {
-            updateGenres(oldBook.getGenres(), newBook.getId(), newBook.getGenres());
-        }
+        patchBook(BookPatch.builder()
+                .bookId(newBook.getId())
+                .expectedVersion(newBook.getVersion())
+                .name(newBook.getName())
+                .author(newBook.getAuthor())
+                .removeAuthor(isNull(newBook.getAuthor()))
+                .genres(newBook.getGenres())
+                .build());
     }
 
-    private void updateGenres(List<Genre> oldGenres, long bookId, List<Genre> genres) {
-        if (isEmpty(genres)) {
-            bookRepository.deleteBookGenreLinks(bookId);
-        } else {
-            genres.stream()
-                    .filter(genre -> !oldGenres.contains(genre))
-                    .forEach(genre -> bookRepository.addGenreToBook(bookId, genre));
-            oldGenres.stream()
-                    .filter(genre -> !genres.contains(genre))
-                    .forEach(genre -> bookRepository.deleteGenreFromBook(bookId, genre));
+    @Override
+    @RetryOnConflict
+    @Transactional
+    public void editBookById(long id, Consumer<Book> edit) {
+        Book current = bookRepository.findWithAuthorAndGenresById(id)
+                .orElseThrow(() -> new IllegalArgumentException("There is no book with such id"));
+        Book edited = Book.builder()
+                .id(current.getId())
+                .name(current.getName())
+                .version(current.getVersion())
+                .author(current.getAuthor())
+                .genres(nonNull(current.getGenres()) ? new LinkedHashSet<>(current.getGenres()) : null)
+                .build();
+        edit.accept(edited);
+        updateBookById(edited);
+    }
+
+    @Override
+    @Transactional
+    public void patchBook(BookPatch patch) {
+        if (patch.removeAuthor() && nonNull(patch.author())) {
+            throw new IllegalArgumentException("Author cannot be both set and removed");
         }
+        Long authorId = nonNull(patch.author()) ? authorService.saveAuthorIfNotExists(patch.author()).getId() : null;
+        Set<Long> genreIds = nonNull(patch.genres()) ? saveGenres(patch.genres()) : null;
+        bookRepository.patch(new BookChanges(patch.bookId(), patch.expectedVersion(), patch.name(),
+                patch.removeAuthor() || nonNull(authorId), authorId, genreIds));
+        eventPublisher.publishEvent(new BookChangedEvent(patch.bookId(), ChangeType.UPDATED));
     }
 
     @Override
     @Transactional
     public void deleteBookById(long id) {
         bookRepository.deleteById(id);
+        eventPublisher.publishEvent(new BookChangedEvent(id, ChangeType.DELETED));
+    }
+
+    @Override
+    @Transactional
+    public BulkDeleteResult deleteBooks(BookFilter filter) {
+        if (filter.isEmpty()) {
+            throw new IllegalArgumentException("At least one filter is required to delete books");
+        }
+        long startedAt = System.nanoTime();
+        List<Long> ids = bookRepository.findIds(filter);
+        DeletedRows deleted = bookRepository.deleteAllByIds(ids, properties.getBooks().getDeleteChunkSize());
+        if (deleted.books() > 0) {
+            eventPublisher.publishEvent(new BooksDeletedEvent(deleted.books(), ids));
+        }
+        return new BulkDeleteResult(deleted.books(), deleted.comments(), deleted.genreLinks(),
+                Duration.ofNanos(System.nanoTime() - startedAt));
     }
 }
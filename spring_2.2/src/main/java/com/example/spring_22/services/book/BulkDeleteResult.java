@@ -0,0 +1,11 @@
+package com.example.spring_22.services.book;
+
+import java.time.Duration;
+
+public record BulkDeleteResult(long books, long comments, long genreLinks, Duration elapsed) {
+
+    public double booksPerSecond() {
+        long millis = Math.max(elapsed.toMillis(), 1);
+        return books * 1000.0 / millis;
+    }
+}
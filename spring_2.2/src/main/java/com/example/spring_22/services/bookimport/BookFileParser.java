@@ -0,0 +1,108 @@
+package com.example.spring_22.services.bookimport;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+final class BookFileParser {
+
+    private static final String CSV_SEPARATOR = ";";
+
+    private static final String GENRES_SEPARATOR = ",";
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private BookFileParser() {
+    }
+
+    static Stream<ImportedBook> parse(Path file) {
+        try {
+            BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8);
+            Stream<ImportedBook> books = isJsonLines(file) ? parseJsonLines(reader) : parseCsv(reader);
+            return books.onClose(() -> {
+                try {
+                    reader.close();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static boolean isJsonLines(Path file) {
+        String fileName = file.getFileName().toString().toLowerCase();
+        return fileName.endsWith(".jsonl") || fileName.endsWith(".json");
+    }
+
+    private static Stream<ImportedBook> parseCsv(BufferedReader reader) throws IOException {
+        String header = reader.readLine();
+        if (header == null) {
+            return Stream.empty();
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        String[] columnNames = header.split(CSV_SEPARATOR, -1);
+        for (int i = 0; i < columnNames.length; i++) {
+            columns.put(columnNames[i].trim().toLowerCase(), i);
+        }
+        if (!columns.containsKey("name")) {
+            throw new IllegalArgumentException("Import file has no 'name' column");
+        }
+        return reader.lines()
+                .filter(line -> !line.isBlank())
+                .map(line -> toImportedBook(line.split(CSV_SEPARATOR, -1), columns));
+    }
+
+    private static ImportedBook toImportedBook(String[] values, Map<String, Integer> columns) {
+        String authorId = value(values, columns, "author_id");
+        String genres = value(values, columns, "genres");
+        return new ImportedBook(value(values, columns, "name"),
+                authorId == null ? null : Long.valueOf(authorId),
+                value(values, columns, "author"),
+                genres == null ? List.of() : Arrays.stream(genres.split(GENRES_SEPARATOR))
+                        .map(String::trim)
+                        .filter(genre -> !genre.isEmpty())
+                        .toList());
+    }
+
+    private static String value(String[] values, Map<String, Integer> columns, String column) {
+        Integer index = columns.get(column);
+        if (index == null || index >= values.length || values[index].isBlank()) {
+            return null;
+        }
+        return values[index].trim();
+    }
+
+    private static Stream<ImportedBook> parseJsonLines(BufferedReader reader) {
+        return reader.lines()
+                .filter(line -> !line.isBlank())
+                .map(BookFileParser::toImportedBook);
+    }
+
+    private static ImportedBook toImportedBook(String line) {
+        try {
+            JsonNode node = OBJECT_MAPPER.readTree(line);
+            List<String> genres = new ArrayList<>();
+            node.path("genres").forEach(genre -> genres.add(genre.asText()));
+            return new ImportedBook(node.path("name").asText(null),
+                    node.hasNonNull("author_id") ? node.get("author_id").asLong() : null,
+                    node.path("author").asText(null),
+                    genres);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
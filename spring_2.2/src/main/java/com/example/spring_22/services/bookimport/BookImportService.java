@@ -0,0 +1,8 @@
+package com.example.spring_22.services.bookimport;
+
+import java.nio.file.Path;
+
+public interface BookImportService {
+
+    ImportResult importBooks(Path file, int batchSize);
+}
@@ -0,0 +1,106 @@
+package com.example.spring_22.services.bookimport;
+
+import com.example.spring_22.dao.bookimport.BookImportRepository;
+import com.example.spring_22.dao.bookimport.BookImportRepository.BookGenreLink;
+import com.example.spring_22.dao.bookimport.BookImportRepository.BookRow;
+import com.example.spring_22.services.events.BooksImportedEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+@Service
+@RequiredArgsConstructor
+public class BookImportServiceImpl implements BookImportService {
+
+    private final BookImportRepository bookImportRepository;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Override
+    @Transactional
+    public ImportResult importBooks(Path file, int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+        long startedAt = System.nanoTime();
+        Map<String, Long> authorIds = new HashMap<>();
+        Map<String, Long> genreIds = new HashMap<>();
+        List<Long> bookIds = new ArrayList<>();
+        try (Stream<ImportedBook> books = BookFileParser.parse(file)) {
+            Iterator<ImportedBook> iterator = books.iterator();
+            List<ImportedBook> chunk = new ArrayList<>(batchSize);
+            while (iterator.hasNext()) {
+                chunk.add(iterator.next());
+                if (chunk.size() == batchSize) {
+                    bookIds.addAll(importChunk(chunk, authorIds, genreIds));
+                    chunk.clear();
+                }
+            }
+            bookIds.addAll(importChunk(chunk, authorIds, genreIds));
+        }
+        eventPublisher.publishEvent(new BooksImportedEvent(bookIds.size(), bookIds));
+        return new ImportResult(bookIds.size(), Duration.ofNanos(System.nanoTime() - startedAt));
+    }
+
+    private List<Long> importChunk(List<ImportedBook> chunk, Map<String, Long> authorIds,
+                                   Map<String, Long> genreIds) {
+        if (chunk.isEmpty()) {
+            return List.of();
+        }
+        resolveIds(chunk.stream()
+                        .map(ImportedBook::authorFullName)
+                        .filter(Objects::nonNull),
+                authorIds, bookImportRepository::findAuthorIdsByFullNames, bookImportRepository::insertAuthors);
+        resolveIds(chunk.stream()
+                        .flatMap(book -> book.genreNames().stream()),
+                genreIds, bookImportRepository::findGenreIdsByNames, bookImportRepository::insertGenres);
+        List<Long> bookIds = bookImportRepository.insertBooks(chunk.stream()
+                .map(book -> new BookRow(book.name(), resolveAuthorId(book, authorIds)))
+                .toList());
+        List<BookGenreLink> links = new ArrayList<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            long bookId = bookIds.get(i);
+            new LinkedHashSet<>(chunk.get(i).genreNames())
+                    .forEach(genreName -> links.add(new BookGenreLink(bookId, genreIds.get(genreName))));
+        }
+        bookImportRepository.insertBookGenreLinks(links);
+        return bookIds;
+    }
+
+    private Long resolveAuthorId(ImportedBook book, Map<String, Long> authorIds) {
+        if (book.authorId() != null) {
+            return book.authorId();
+        }
+        return book.authorFullName() == null ? null : authorIds.get(book.authorFullName());
+    }
+
+    private void resolveIds(Stream<String> names, Map<String, Long> dictionary,
+                            Function<Collection<String>, Map<String, Long>> finder,
+                            Function<Collection<String>, Map<String, Long>> inserter) {
+        Set<String> unknownNames = new LinkedHashSet<>();
+        names.filter(name -> !dictionary.containsKey(name))
+                .forEach(unknownNames::add);
+        if (unknownNames.isEmpty()) {
+            return;
+        }
+        Map<String, Long> existing = finder.apply(unknownNames);
+        dictionary.putAll(existing);
+        unknownNames.removeAll(existing.keySet());
+        dictionary.putAll(inserter.apply(unknownNames));
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.spring_22.services.bookimport;
+
+import java.time.Duration;
+
+public record ImportResult(long rows, Duration elapsed) {
+
+    public double rowsPerSecond() {
+        long millis = Math.max(elapsed.toMillis(), 1);
+        return rows * 1000.0 / millis;
+    }
+}
@@ -0,0 +1,6 @@
+package com.example.spring_22.services.bookimport;
+
+import java.util.List;
+
+record ImportedBook(String name, Long authorId, String authorFullName, List<String> genreNames) {
+}
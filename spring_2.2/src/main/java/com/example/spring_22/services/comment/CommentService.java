@@ -1,20 +1,43 @@
 package com.example.spring_22.services.comment;
 
+import com.example.spring_22.dao.MultiGetResult;
 import com.example.spring_22.domain.Book;
 import com.example.spring_22.domain.Comment;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
 
 public interface CommentService {
 
     long addCommentToBook(Comment comment);
 
+    void enqueueCommentToBook(Comment comment);
+
     Optional<Comment> getCommentById(long id);
 
+    MultiGetResult<Comment> getCommentsByIds(Collection<Long> ids);
+
     List<Comment> getAllCommentsOfBook(long bookId);
 
-    void updateCommentTextById(long id, String newText);
+    void getAllCommentsOfBook(long bookId, Consumer<Comment> commentConsumer);
+
+    List<Comment> getCommentsPage(long bookId, long afterCommentId, int limit);
+
+    long countCommentsOfBook(long bookId);
+
+    /**
+     * Fails with an optimistic locking exception when the comment is no longer at {@code expectedVersion}.
+     */
+    void updateCommentTextById(long id, long expectedVersion, String newText);
+
+    /**
+     * Applies {@code edit} to the current text; on a conflict the comment is read again and the edit
+     * re-applied, so no concurrent edit is lost.
+     */
+    void editCommentTextById(long id, UnaryOperator<String> edit);
 
     void deleteCommentById(long id);
 }
@@ -1,14 +1,24 @@
 package com.example.spring_22.services.comment;
 
+import com.example.spring_22.config.LibraryProperties;
+import com.example.spring_22.dao.MultiGetResult;
 import com.example.spring_22.dao.comment.CommentRepository;
+import com.example.spring_22.domain.Book;
 import com.example.spring_22.domain.Comment;
+import com.example.spring_22.retry.RetryOnConflict;
 import com.example.spring_22.services.book.BookService;
+import com.example.spring_22.services.events.ChangeType;
+import com.example.spring_22.services.events.CommentChangedEvent;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
 
 @Repository
 @RequiredArgsConstructor
@@ -18,34 +28,97 @@ public class CommentServiceImpl implements CommentService {
 
     private final BookService bookService;
 
+    private final LibraryProperties properties;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final CommentWriteBehindQueue commentWriteBehindQueue;
+
     @Override
     @Transactional
     public long addCommentToBook(Comment comment) {
         var savedComment = commentRepository.save(Comment.builder().text(comment.getText()).build());
         var book = bookService.getBookById(comment.getBook().getId());
         book.ifPresent(value -> commentRepository.updateCommentBook(savedComment, value));
+        eventPublisher.publishEvent(new CommentChangedEvent(savedComment.getId(), book.map(Book::getId).orElse(null),
+                ChangeType.CREATED));
         return savedComment.getId();
     }
 
     @Override
+    public void enqueueCommentToBook(Comment comment) {
+        commentWriteBehindQueue.enqueue(comment);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public Optional<Comment> getCommentById(long id) {
         return commentRepository.findById(id);
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public MultiGetResult<Comment> getCommentsByIds(Collection<Long> ids) {
+        return commentRepository.findAllByIds(ids, properties.getMultiGet().getChunkSize());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public List<Comment> getAllCommentsOfBook(long bookId) {
         return commentRepository.findAllByBookId(bookId);
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public void getAllCommentsOfBook(long bookId, Consumer<Comment> commentConsumer) {
+        int pageSize = properties.getComments().getPageSize();
+        long afterCommentId = 0;
+        List<Comment> page;
+        do {
+            page = commentRepository.findByBookId(bookId, afterCommentId, pageSize);
+            page.forEach(commentConsumer);
+            if (!page.isEmpty()) {
+                afterCommentId = page.get(page.size() - 1).getId();
+            }
+        } while (page.size() == pageSize);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Comment> getCommentsPage(long bookId, long afterCommentId, int limit) {
+        return commentRepository.findByBookId(bookId, afterCommentId, limit);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long countCommentsOfBook(long bookId) {
+        return commentRepository.countByBookId(bookId);
+    }
+
+    @Override
+    @Transactional
+    public void updateCommentTextById(long id, long expectedVersion, String newText) {
+        commentRepository.updateTextById(id, expectedVersion, newText);
+        eventPublisher.publishEvent(new CommentChangedEvent(id, commentRepository.findBookIdById(id).orElse(null),
+                ChangeType.UPDATED));
+    }
+
+    @Override
+    @RetryOnConflict
     @Transactional
-    public void updateCommentTextById(long id, String newText) {
-        commentRepository.updateTextById(id, newText);
+    public void editCommentTextById(long id, UnaryOperator<String> edit) {
+        Comment comment = commentRepository.findById(id)
+                .orElseThrow(() -> new IllegalArgumentException("There is no comment with such id"));
+        commentRepository.updateTextById(id, comment.getVersion(), edit.apply(comment.getText()));
+        Long bookId = comment.getBook() != null ? comment.getBook().getId() : null;
+        eventPublisher.publishEvent(new CommentChangedEvent(id, bookId, ChangeType.UPDATED));
     }
 
     @Override
     @Transactional
     public void deleteCommentById(long id) {
+        Long bookId = commentRepository.findBookIdById(id).orElse(null);
         commentRepository.deleteById(id);
+        eventPublisher.publishEvent(new CommentChangedEvent(id, bookId, ChangeType.DELETED));
     }
 }
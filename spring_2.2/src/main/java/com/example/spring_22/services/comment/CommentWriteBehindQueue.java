@@ -0,0 +1,13 @@
+package com.example.spring_22.services.comment;
+
+import com.example.spring_22.domain.Comment;
+
+public interface CommentWriteBehindQueue {
+
+    void enqueue(Comment comment);
+
+    WriteBehindStats stats();
+
+    record WriteBehindStats(boolean running, int pending, long written, long failed) {
+    }
+}
@@ -0,0 +1,208 @@
+package com.example.spring_22.services.comment;
+
+import com.example.spring_22.config.LibraryProperties;
+import com.example.spring_22.dao.comment.CommentRepository;
+import com.example.spring_22.domain.Book;
+import com.example.spring_22.domain.Comment;
+import com.example.spring_22.services.events.ChangeType;
+import com.example.spring_22.services.events.CommentChangedEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Buffers new comments in a bounded queue and writes them from a single worker thread, one transaction
+ * per flush. Producers wait up to {@code offer-timeout} when the queue is full and are then rejected.
+ * Stopping the context stops accepting comments and writes everything still queued.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CommentWriteBehindQueueImpl implements CommentWriteBehindQueue, SmartLifecycle {
+
+    private final CommentRepository commentRepository;
+
+    private final PlatformTransactionManager transactionManager;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final LibraryProperties properties;
+
+    private final ReadWriteLock lifecycleLock = new ReentrantReadWriteLock();
+
+    private final AtomicLong written = new AtomicLong();
+
+    private final AtomicLong failed = new AtomicLong();
+
+    private volatile BlockingQueue<PendingComment> queue = new ArrayBlockingQueue<>(1);
+
+    private volatile boolean running;
+
+    private Thread worker;
+
+    @Override
+    public void enqueue(Comment comment) {
+        if (comment.getBook() == null) {
+            throw new IllegalArgumentException("Comment must reference a book");
+        }
+        PendingComment pending = new PendingComment(comment.getBook().getId(), comment.getText());
+        lifecycleLock.readLock().lock();
+        try {
+            if (!running) {
+                throw new IllegalStateException("Write-behind comment queue is not running");
+            }
+            long timeout = properties.getComments().getWriteBehind().getOfferTimeout().toNanos();
+            if (!queue.offer(pending, timeout, TimeUnit.NANOSECONDS)) {
+                throw new IllegalStateException("Write-behind comment queue is full");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the comment queue", e);
+        } finally {
+            lifecycleLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public WriteBehindStats stats() {
+        return new WriteBehindStats(running, queue.size(), written.get(), failed.get());
+    }
+
+    @Override
+    public boolean isAutoStartup() {
+        return properties.getComments().getWriteBehind().isEnabled();
+    }
+
+    @Override
+    public void start() {
+        lifecycleLock.writeLock().lock();
+        try {
+            if (running) {
+                return;
+            }
+            queue = new ArrayBlockingQueue<>(properties.getComments().getWriteBehind().getCapacity());
+            running = true;
+            worker = new Thread(this::drainLoop, "comment-write-behind");
+            worker.setDaemon(true);
+            worker.start();
+        } finally {
+            lifecycleLock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void stop() {
+        lifecycleLock.writeLock().lock();
+        try {
+            running = false;
+        } finally {
+            lifecycleLock.writeLock().unlock();
+        }
+        try {
+            worker.join(properties.getComments().getWriteBehind().getShutdownTimeout().toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (worker.isAlive()) {
+            log.warn("Comment write-behind worker did not finish in time, {} comments are still queued", queue.size());
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void drainLoop() {
+        LibraryProperties.WriteBehind settings = properties.getComments().getWriteBehind();
+        List<PendingComment> batch = new ArrayList<>(settings.getFlushSize());
+        while (running || !queue.isEmpty()) {
+            try {
+                collect(batch, settings);
+            } catch (InterruptedException e) {
+                // stop accepting and keep draining, nothing queued may be lost
+                running = false;
+            }
+            if (!batch.isEmpty()) {
+                flush(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void collect(List<PendingComment> batch, LibraryProperties.WriteBehind settings)
+            throws InterruptedException {
+        long interval = settings.getFlushInterval().toNanos();
+        PendingComment first = queue.poll(interval, TimeUnit.NANOSECONDS);
+        if (first == null) {
+            return;
+        }
+        batch.add(first);
+        long deadline = System.nanoTime() + interval;
+        while (batch.size() < settings.getFlushSize()) {
+            queue.drainTo(batch, settings.getFlushSize() - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= settings.getFlushSize() || remaining <= 0 || !running) {
+                return;
+            }
+            PendingComment next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void flush(List<PendingComment> batch) {
+        try {
+            write(batch);
+        } catch (RuntimeException e) {
+            // one comment to a deleted book rolls back the whole batch, so retry the rest one by one
+            for (PendingComment pending : batch) {
+                try {
+                    write(List.of(pending));
+                } catch (RuntimeException commentException) {
+                    failed.incrementAndGet();
+                    log.error("Could not write comment to book {}", pending.bookId(), commentException);
+                }
+            }
+        }
+    }
+
+    private void write(List<PendingComment> batch) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            List<Comment> comments = commentRepository.saveAll(batch.stream()
+                    .map(PendingComment::toComment)
+                    .toList());
+            comments.forEach(comment ->
+                    eventPublisher.publishEvent(new CommentChangedEvent(comment.getId(), comment.getBook().getId(),
+                            ChangeType.CREATED)));
+        });
+        written.addAndGet(batch.size());
+    }
+
+    private record PendingComment(long bookId, String text) {
+
+        private Comment toComment() {
+            return Comment.builder()
+                    .text(text)
+                    .book(Book.builder()
+                            .id(bookId)
+                            .build())
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,6 @@
+package com.example.spring_22.services.datagen;
+
+public interface DataGeneratorService {
+
+    GenerationResult generate(GenerationSpec spec);
+}
@@ -0,0 +1,208 @@
+package com.example.spring_22.services.datagen;
+
+import com.example.spring_22.dao.ReservedIds;
+import com.example.spring_22.dao.bookimport.BookImportRepository;
+import com.example.spring_22.dao.bookimport.BookImportRepository.BookGenreLink;
+import com.example.spring_22.dao.datagen.DataGeneratorRepository;
+import com.example.spring_22.dao.datagen.DataGeneratorRepository.BookRow;
+import com.example.spring_22.dao.datagen.DataGeneratorRepository.CommentRow;
+import com.example.spring_22.dao.datagen.DataGeneratorRepository.NamedRow;
+import com.example.spring_22.services.events.BooksImportedEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+@Service
+@RequiredArgsConstructor
+public class DataGeneratorServiceImpl implements DataGeneratorService {
+
+    private final DataGeneratorRepository dataGeneratorRepository;
+
+    private final BookImportRepository bookImportRepository;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Override
+    @Transactional
+    public GenerationResult generate(GenerationSpec spec) {
+        validate(spec);
+        long startedAt = System.nanoTime();
+        Random random = new Random(spec.seed());
+        Generation generation = new Generation(spec, random);
+        long[] genreIds = generation.resolveGenres();
+        Set<String> authorNames = new HashSet<>();
+        List<String> authorChunk = new ArrayList<>(spec.batchSize());
+        for (int i = 0; i < spec.authors(); i++) {
+            String name = NameGenerator.authorName(random);
+            authorChunk.add(authorNames.add(name) ? name : name + " " + (i + 1));
+            if (authorChunk.size() == spec.batchSize()) {
+                generation.writeAuthorChunk(authorChunk, genreIds);
+                authorChunk.clear();
+            }
+        }
+        generation.writeAuthorChunk(authorChunk, genreIds);
+        generation.flushBooks();
+        eventPublisher.publishEvent(new BooksImportedEvent(generation.books, generation.bookIds));
+        return new GenerationResult(generation.authors, generation.genres, generation.books, generation.links,
+                generation.comments, Duration.ofNanos(System.nanoTime() - startedAt));
+    }
+
+    private void validate(GenerationSpec spec) {
+        if (spec.authors() < 0 || spec.booksPerAuthor() < 0 || spec.commentsPerBook() < 0) {
+            throw new IllegalArgumentException("Counts must not be negative");
+        }
+        if (spec.genres() <= 0 || spec.genresPerBook() < 0 || spec.genresPerBook() > spec.genres()) {
+            throw new IllegalArgumentException("Genres per book must be between 0 and the number of genres");
+        }
+        if (spec.zipfExponent() <= 0) {
+            throw new IllegalArgumentException("Zipf exponent must be positive");
+        }
+        if (spec.batchSize() <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+    }
+
+    private final class Generation {
+
+        private final GenerationSpec spec;
+
+        private final Random random;
+
+        private final ZipfDistribution genreDistribution;
+
+        private final List<BookRow> bookBuffer;
+
+        private final List<BookGenreLink> linkBuffer = new ArrayList<>();
+
+        private final List<CommentRow> commentBuffer = new ArrayList<>();
+
+        private final List<Long> bookIds = new ArrayList<>();
+
+        private final ReservedIds reservedAuthorIds;
+
+        private final ReservedIds reservedBookIds;
+
+        private final ReservedIds reservedCommentIds;
+
+        private long authors;
+
+        private long genres;
+
+        private long books;
+
+        private long links;
+
+        private long comments;
+
+        private Generation(GenerationSpec spec, Random random) {
+            this.spec = spec;
+            this.random = random;
+            this.genreDistribution = new ZipfDistribution(spec.genres(), spec.zipfExponent());
+            this.bookBuffer = new ArrayList<>(spec.batchSize());
+            long bookCount = (long) spec.authors() * spec.booksPerAuthor();
+            reservedAuthorIds = dataGeneratorRepository.reserveIds("author_seq", spec.authors());
+            reservedBookIds = dataGeneratorRepository.reserveIds("book_seq", bookCount);
+            reservedCommentIds = dataGeneratorRepository.reserveIds("comment_seq", bookCount * spec.commentsPerBook());
+        }
+
+        private long[] resolveGenres() {
+            List<String> names = new ArrayList<>(spec.genres());
+            for (int rank = 0; rank < spec.genres(); rank++) {
+                names.add(NameGenerator.genreName(rank));
+            }
+            Map<String, Long> existing = bookImportRepository.findGenreIdsByNames(names);
+            List<String> missing = names.stream()
+                    .filter(name -> !existing.containsKey(name))
+                    .toList();
+            ReservedIds reservedGenreIds = dataGeneratorRepository.reserveIds("genre_seq", missing.size());
+            List<NamedRow> rows = new ArrayList<>(missing.size());
+            for (String name : missing) {
+                rows.add(new NamedRow(reservedGenreIds.next(), name));
+            }
+            dataGeneratorRepository.insertGenres(rows);
+            genres = rows.size();
+            Map<String, Long> idsByName = new HashMap<>(existing);
+            rows.forEach(row -> idsByName.put(row.name(), row.id()));
+            long[] genreIds = new long[names.size()];
+            for (int rank = 0; rank < names.size(); rank++) {
+                genreIds[rank] = idsByName.get(names.get(rank));
+            }
+            return genreIds;
+        }
+
+        private void writeAuthorChunk(List<String> names, long[] genreIds) {
+            if (names.isEmpty()) {
+                return;
+            }
+            Map<String, Long> existing = bookImportRepository.findAuthorIdsByFullNames(names);
+            List<NamedRow> newAuthors = new ArrayList<>();
+            List<Long> authorIds = new ArrayList<>(names.size());
+            for (String name : names) {
+                Long authorId = existing.get(name);
+                if (authorId == null) {
+                    authorId = reservedAuthorIds.next();
+                    newAuthors.add(new NamedRow(authorId, name));
+                }
+                authorIds.add(authorId);
+            }
+            dataGeneratorRepository.insertAuthors(newAuthors);
+            authors += newAuthors.size();
+            for (long authorId : authorIds) {
+                for (int i = 0; i < spec.booksPerAuthor(); i++) {
+                    addBook(authorId, genreIds);
+                }
+            }
+        }
+
+        private void addBook(long authorId, long[] genreIds) {
+            long bookId = reservedBookIds.next();
+            bookBuffer.add(new BookRow(bookId, NameGenerator.bookName(random, bookId), authorId));
+            for (int rank : sampleGenreRanks()) {
+                linkBuffer.add(new BookGenreLink(bookId, genreIds[rank]));
+            }
+            for (int i = 0; i < spec.commentsPerBook(); i++) {
+                commentBuffer.add(new CommentRow(reservedCommentIds.next(), bookId,
+                        NameGenerator.commentText(random)));
+            }
+            if (bookBuffer.size() == spec.batchSize()) {
+                flushBooks();
+            }
+        }
+
+        private Set<Integer> sampleGenreRanks() {
+            Set<Integer> ranks = new LinkedHashSet<>();
+            int attempts = 0;
+            while (ranks.size() < spec.genresPerBook() && attempts++ < spec.genresPerBook() * 32) {
+                ranks.add(genreDistribution.sample(random));
+            }
+            for (int rank = 0; ranks.size() < spec.genresPerBook(); rank++) {
+                ranks.add(rank);
+            }
+            return ranks;
+        }
+
+        private void flushBooks() {
+            dataGeneratorRepository.insertBooks(bookBuffer);
+            bookImportRepository.insertBookGenreLinks(linkBuffer);
+            dataGeneratorRepository.insertComments(commentBuffer);
+            bookBuffer.forEach(book -> bookIds.add(book.id()));
+            books += bookBuffer.size();
+            links += linkBuffer.size();
+            comments += commentBuffer.size();
+            bookBuffer.clear();
+            linkBuffer.clear();
+            commentBuffer.clear();
+        }
+    }
+}
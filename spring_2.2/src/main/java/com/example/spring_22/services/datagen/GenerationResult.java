@@ -0,0 +1,16 @@
+package com.example.spring_22.services.datagen;
+
+import java.time.Duration;
+
+public record GenerationResult(long authors, long genres, long books, long bookGenreLinks, long comments,
+                               Duration elapsed) {
+
+    public long rows() {
+        return authors + genres + books + bookGenreLinks + comments;
+    }
+
+    public double rowsPerSecond() {
+        long millis = Math.max(elapsed.toMillis(), 1);
+        return rows() * 1000.0 / millis;
+    }
+}
@@ -0,0 +1,5 @@
+package com.example.spring_22.services.datagen;
+
+public record GenerationSpec(int authors, int booksPerAuthor, int genres, int genresPerBook, double zipfExponent,
+                             int commentsPerBook, long seed, int batchSize) {
+}
@@ -0,0 +1,49 @@
+package com.example.spring_22.services.datagen;
+
+import java.util.Random;
+
+final class NameGenerator {
+
+    private static final String[] FIRST_NAMES = {"Anna", "Boris", "Daria", "Fyodor", "Galina", "Ivan", "Ksenia",
+            "Leo", "Maria", "Nikolai", "Olga", "Pavel", "Sofia", "Vera", "Yuri", "Zinaida"};
+
+    private static final String[] LAST_NAMES = {"Akhmatova", "Bulgakov", "Chekhov", "Dostoevsky", "Gogol",
+            "Gorky", "Lermontov", "Nabokov", "Pasternak", "Pushkin", "Rubina", "Sholokhov", "Tolstoy", "Tsvetaeva",
+            "Turgenev", "Zamyatin"};
+
+    private static final String[] GENRES = {"Adventure", "Romance", "Detective", "Fantasy", "Science fiction",
+            "Horror", "Poetry", "Drama", "Satire", "Biography", "History", "Thriller"};
+
+    private static final String[] ADJECTIVES = {"Silent", "Last", "Hidden", "Golden", "Broken", "Frozen", "Lost",
+            "Distant", "Burning", "Quiet", "Northern", "Forgotten"};
+
+    private static final String[] NOUNS = {"River", "Garden", "Winter", "City", "Letter", "Station", "Island",
+            "Mirror", "Road", "Storm", "House", "Promise"};
+
+    private static final String[] COMMENT_WORDS = {"good", "bad", "boring", "brilliant", "slow", "touching",
+            "funny", "long", "deep", "light", "classic", "overrated"};
+
+    private NameGenerator() {
+    }
+
+    static String authorName(Random random) {
+        return pick(FIRST_NAMES, random) + " " + pick(LAST_NAMES, random);
+    }
+
+    static String genreName(int rank) {
+        String name = GENRES[rank % GENRES.length];
+        return rank < GENRES.length ? name : name + " " + (rank / GENRES.length + 1);
+    }
+
+    static String bookName(Random random, long bookId) {
+        return "The " + pick(ADJECTIVES, random) + " " + pick(NOUNS, random) + " " + bookId;
+    }
+
+    static String commentText(Random random) {
+        return pick(COMMENT_WORDS, random) + " and " + pick(COMMENT_WORDS, random);
+    }
+
+    private static String pick(String[] words, Random random) {
+        return words[random.nextInt(words.length)];
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.spring_22.services.datagen;
+
+import java.util.Arrays;
+import java.util.Random;
+
+final class ZipfDistribution {
+
+    private final double[] cumulativeProbabilities;
+
+    ZipfDistribution(int size, double exponent) {
+        cumulativeProbabilities = new double[size];
+        double sum = 0;
+        for (int rank = 0; rank < size; rank++) {
+            sum += 1 / Math.pow(rank + 1, exponent);
+            cumulativeProbabilities[rank] = sum;
+        }
+        for (int rank = 0; rank < size; rank++) {
+            cumulativeProbabilities[rank] /= sum;
+        }
+    }
+
+    int sample(Random random) {
+        int index = Arrays.binarySearch(cumulativeProbabilities, random.nextDouble());
+        return Math.min(index >= 0 ? index : -index - 1, cumulativeProbabilities.length - 1);
+    }
+}
@@ -0,0 +1,4 @@
+package com.example.spring_22.services.events;
+
+public record BookChangedEvent(long bookId, ChangeType changeType) {
+}
@@ -0,0 +1,6 @@
+package com.example.spring_22.services.events;
+
+import java.util.List;
+
+public record BooksDeletedEvent(long books, List<Long> bookIds) {
+}
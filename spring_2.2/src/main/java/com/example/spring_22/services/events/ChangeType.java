@@ -0,0 +1,7 @@
+package com.example.spring_22.services.events;
+
+public enum ChangeType {
+    CREATED,
+    UPDATED,
+    DELETED
+}
@@ -0,0 +1,7 @@
+package com.example.spring_22.services.events;
+
+/**
+ * {@code bookId} is null when the comment has no book.
+ */
+public record CommentChangedEvent(long commentId, Long bookId, ChangeType changeType) {
+}
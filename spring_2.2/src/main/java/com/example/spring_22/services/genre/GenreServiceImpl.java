@@ -1,25 +1,30 @@
 package com.example.spring_22.services.genre;
 
 
+import com.example.spring_22.cache.LookupCache;
 import com.example.spring_22.dao.genre.GenreRepository;
 import com.example.spring_22.domain.Genre;
 import lombok.RequiredArgsConstructor;
-import org.springframework.dao.DataAccessException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.List;
-import java.util.Optional;
-
 @Service
 @RequiredArgsConstructor
 public class GenreServiceImpl implements GenreService{
 
     private final GenreRepository genreRepository;
 
+    private final LookupCache<Genre> genreCache;
+
     @Override
     @Transactional
     public Genre saveGenreIfNotExists(Genre genre) {
-        return genreRepository.getByName(genre.getGenreName()).orElse(genreRepository.save(genre));
+        var cachedGenre = genreCache.get(genre.getGenreName());
+        if (cachedGenre.isPresent()) {
+            return cachedGenre.get();
+        }
+        var savedGenre = genreRepository.upsertByName(genre.getGenreName());
+        genreCache.put(genre.getGenreName(), savedGenre);
+        return savedGenre;
     }
 }
@@ -0,0 +1,19 @@
+package com.example.spring_22.services.outbox;
+
+import com.example.spring_22.domain.OutboxEvent;
+import com.example.spring_22.domain.OutboxEvent.AggregateType;
+import com.example.spring_22.services.events.ChangeType;
+
+import java.time.Instant;
+
+/**
+ * Ids only: a listener that needs the current state reads it, so a redelivered event never carries stale data.
+ */
+public record ChangeEvent(long eventId, AggregateType aggregateType, long aggregateId, Long bookId,
+                          ChangeType changeType, Instant createdAt) {
+
+    public static ChangeEvent of(OutboxEvent event) {
+        return new ChangeEvent(event.getId(), event.getAggregateType(), event.getAggregateId(), event.getBookId(),
+                event.getChangeType(), event.getCreatedAt());
+    }
+}
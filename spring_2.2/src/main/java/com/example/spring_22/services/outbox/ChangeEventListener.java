@@ -0,0 +1,11 @@
+package com.example.spring_22.services.outbox;
+
+/**
+ * Receives committed book and comment changes from the outbox relay. Delivery is at least once, so
+ * handling the same event twice must be harmless. Events of one book arrive in order; a listener that
+ * throws gets the event again on the next poll, and later events of that book wait for it.
+ */
+public interface ChangeEventListener {
+
+    void onChange(ChangeEvent event);
+}
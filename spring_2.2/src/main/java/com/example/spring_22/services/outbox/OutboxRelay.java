@@ -0,0 +1,20 @@
+package com.example.spring_22.services.outbox;
+
+public interface OutboxRelay {
+
+    /**
+     * Delivers the oldest undelivered events to every listener and returns how many were delivered.
+     */
+    int relayBatch();
+
+    /**
+     * Deletes events delivered longer than {@code library.outbox.retention} ago, in batches. Without
+     * listeners nothing is ever delivered, so events older than the retention are deleted regardless.
+     */
+    int cleanUp();
+
+    RelayStats stats();
+
+    record RelayStats(boolean running, long delivered, long failed, long cleanedUp) {
+    }
+}
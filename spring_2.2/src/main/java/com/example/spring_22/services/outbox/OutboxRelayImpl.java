@@ -0,0 +1,179 @@
+package com.example.spring_22.services.outbox;
+
+import com.example.spring_22.config.LibraryProperties;
+import com.example.spring_22.dao.outbox.OutboxRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Polls the outbox from a single worker thread and hands each event to every {@link ChangeEventListener}
+ * outside any transaction. Events are marked delivered only after all listeners returned, so a crash in
+ * between delivers them again. When a listener fails, the remaining events of the same book in the batch
+ * are held back, keeping per-book order. Like {@code since}, the relay skips events younger than
+ * {@code settle-time}. With no listeners registered it does not read the outbox, and cleanup deletes
+ * events by age whether or not they were delivered.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OutboxRelayImpl implements OutboxRelay, SmartLifecycle {
+
+    private final OutboxRepository outboxRepository;
+
+    private final PlatformTransactionManager transactionManager;
+
+    private final ObjectProvider<ChangeEventListener> listeners;
+
+    private final LibraryProperties properties;
+
+    private final AtomicLong delivered = new AtomicLong();
+
+    private final AtomicLong failed = new AtomicLong();
+
+    private final AtomicLong cleanedUp = new AtomicLong();
+
+    private volatile boolean running;
+
+    private Thread worker;
+
+    @Override
+    public int relayBatch() {
+        List<ChangeEventListener> currentListeners = listeners.orderedStream().toList();
+        if (currentListeners.isEmpty()) {
+            return 0;
+        }
+        LibraryProperties.Outbox settings = properties.getOutbox();
+        Instant createdBefore = Instant.now().minus(settings.getSettleTime());
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        List<ChangeEvent> batch = transactionTemplate.execute(status ->
+                outboxRepository.findUndelivered(createdBefore, settings.getBatchSize()).stream()
+                        .map(ChangeEvent::of)
+                        .toList());
+        if (batch == null || batch.isEmpty()) {
+            return 0;
+        }
+        List<Long> deliveredIds = new ArrayList<>(batch.size());
+        Set<String> heldBack = new HashSet<>();
+        for (ChangeEvent event : batch) {
+            String orderingKey = orderingKey(event);
+            if (heldBack.contains(orderingKey)) {
+                continue;
+            }
+            try {
+                currentListeners.forEach(listener -> listener.onChange(event));
+                deliveredIds.add(event.eventId());
+            } catch (RuntimeException e) {
+                heldBack.add(orderingKey);
+                failed.incrementAndGet();
+                log.warn("Could not deliver outbox event {}, will retry", event.eventId(), e);
+            }
+        }
+        if (!deliveredIds.isEmpty()) {
+            transactionTemplate.executeWithoutResult(status ->
+                    outboxRepository.markDelivered(deliveredIds, Instant.now()));
+            delivered.addAndGet(deliveredIds.size());
+        }
+        return deliveredIds.size();
+    }
+
+    @Override
+    public int cleanUp() {
+        LibraryProperties.Outbox settings = properties.getOutbox();
+        Instant before = Instant.now().minus(settings.getRetention());
+        boolean undeliverable = listeners.orderedStream().findAny().isEmpty();
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        int total = 0;
+        int deleted;
+        do {
+            deleted = transactionTemplate.execute(status -> undeliverable
+                    ? outboxRepository.deleteCreatedBefore(before, settings.getCleanupBatchSize())
+                    : outboxRepository.deleteDelivered(before, settings.getCleanupBatchSize()));
+            total += deleted;
+        } while (deleted == settings.getCleanupBatchSize());
+        cleanedUp.addAndGet(total);
+        return total;
+    }
+
+    @Override
+    public RelayStats stats() {
+        return new RelayStats(running, delivered.get(), failed.get(), cleanedUp.get());
+    }
+
+    @Override
+    public boolean isAutoStartup() {
+        return properties.getOutbox().isRelayEnabled();
+    }
+
+    @Override
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        worker = new Thread(this::relayLoop, "outbox-relay");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        worker.interrupt();
+        try {
+            worker.join(properties.getOutbox().getPollInterval().multipliedBy(10).toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void relayLoop() {
+        LibraryProperties.Outbox settings = properties.getOutbox();
+        long nextCleanUp = System.nanoTime() + settings.getCleanupInterval().toNanos();
+        while (running) {
+            try {
+                int relayed = relayBatch();
+                if (System.nanoTime() - nextCleanUp >= 0) {
+                    cleanUp();
+                    nextCleanUp = System.nanoTime() + settings.getCleanupInterval().toNanos();
+                }
+                if (relayed < settings.getBatchSize()) {
+                    Thread.sleep(settings.getPollInterval().toMillis());
+                }
+            } catch (InterruptedException e) {
+                // stop() interrupts the wait; undelivered events stay in the outbox for the next start
+                return;
+            } catch (RuntimeException e) {
+                log.error("Outbox relay failed, retrying after {}", settings.getPollInterval(), e);
+                try {
+                    Thread.sleep(settings.getPollInterval().toMillis());
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private String orderingKey(ChangeEvent event) {
+        return event.bookId() != null ? "book:" + event.bookId() : event.aggregateType() + ":" + event.aggregateId();
+    }
+}
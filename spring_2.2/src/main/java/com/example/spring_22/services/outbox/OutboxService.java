@@ -0,0 +1,13 @@
+package com.example.spring_22.services.outbox;
+
+import java.util.List;
+
+public interface OutboxService {
+
+    /**
+     * Events after {@code eventId} in id order, while they are still kept. The newest events are held
+     * back for {@code library.outbox.settle-time}, so a transaction that took a smaller id but commits
+     * later is not skipped by a reader that already moved past it.
+     */
+    List<ChangeEvent> since(long eventId, int limit);
+}
@@ -0,0 +1,91 @@
+package com.example.spring_22.services.outbox;
+
+import com.example.spring_22.config.LibraryProperties;
+import com.example.spring_22.dao.book.BookRepository;
+import com.example.spring_22.dao.outbox.OutboxRepository;
+import com.example.spring_22.domain.OutboxEvent;
+import com.example.spring_22.domain.OutboxEvent.AggregateType;
+import com.example.spring_22.services.events.BookChangedEvent;
+import com.example.spring_22.services.events.BooksDeletedEvent;
+import com.example.spring_22.services.events.BooksImportedEvent;
+import com.example.spring_22.services.events.ChangeType;
+import com.example.spring_22.services.events.CommentChangedEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Writes every book and comment change to the outbox just before its transaction commits, so the
+ * change and its event are committed or rolled back together. Event ids are taken at that point while
+ * the row lock of the book is held: book writes already hold it, and comment writes take it here. So
+ * writers of one book get their event ids in commit order.
+ */
+@Service
+@RequiredArgsConstructor
+public class OutboxServiceImpl implements OutboxService {
+
+    private final OutboxRepository outboxRepository;
+
+    private final BookRepository bookRepository;
+
+    private final LibraryProperties properties;
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<ChangeEvent> since(long eventId, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be positive");
+        }
+        Instant createdBefore = Instant.now().minus(properties.getOutbox().getSettleTime());
+        return outboxRepository.findSince(eventId, createdBefore, limit).stream()
+                .map(ChangeEvent::of)
+                .toList();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void onBookChanged(BookChangedEvent event) {
+        outboxRepository.appendAll(List.of(outboxEvent(AggregateType.BOOK, event.bookId(), event.bookId(),
+                event.changeType(), Instant.now())));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void onCommentChanged(CommentChangedEvent event) {
+        if (event.bookId() != null) {
+            bookRepository.lockById(event.bookId());
+        }
+        outboxRepository.appendAll(List.of(outboxEvent(AggregateType.COMMENT, event.commentId(), event.bookId(),
+                event.changeType(), Instant.now())));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void onBooksImported(BooksImportedEvent event) {
+        Instant now = Instant.now();
+        outboxRepository.appendAll(event.bookIds().stream()
+                .map(bookId -> outboxEvent(AggregateType.BOOK, bookId, bookId, ChangeType.CREATED, now))
+                .toList());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void onBooksDeleted(BooksDeletedEvent event) {
+        Instant now = Instant.now();
+        outboxRepository.appendAll(event.bookIds().stream()
+                .map(bookId -> outboxEvent(AggregateType.BOOK, bookId, bookId, ChangeType.DELETED, now))
+                .toList());
+    }
+
+    private OutboxEvent outboxEvent(AggregateType aggregateType, long aggregateId, Long bookId,
+                                    ChangeType changeType, Instant createdAt) {
+        return OutboxEvent.builder()
+                .aggregateType(aggregateType)
+                .aggregateId(aggregateId)
+                .bookId(bookId)
+                .changeType(changeType)
+                .createdAt(createdAt)
+                .build();
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.spring_22.services.script;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * {@code error} is set when the batch was rolled back for a reason no single command caused, such as a failed commit.
+ */
+public record BatchResult(int number, List<CommandResult> commands, boolean committed, Duration elapsed,
+                          String error) {
+
+    public int firstLine() {
+        return commands.get(0).lineNumber();
+    }
+
+    public int lastLine() {
+        return commands.get(commands.size() - 1).lineNumber();
+    }
+}
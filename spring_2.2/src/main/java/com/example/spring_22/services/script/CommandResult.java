@@ -0,0 +1,4 @@
+package com.example.spring_22.services.script;
+
+public record CommandResult(int lineNumber, String command, boolean success, String output) {
+}
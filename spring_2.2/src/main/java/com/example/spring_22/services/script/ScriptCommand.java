@@ -0,0 +1,24 @@
+package com.example.spring_22.services.script;
+
+import java.util.List;
+import java.util.Map;
+
+public record ScriptCommand(int lineNumber, String text, String key, Map<String, List<String>> options) {
+
+    public String option(String name) {
+        List<String> values = options.get(name);
+        return values == null || values.isEmpty() ? null : String.join(" ", values);
+    }
+
+    public List<String> values(String name) {
+        return options.getOrDefault(name, List.of());
+    }
+
+    public String requiredOption(String name) {
+        String value = option(name);
+        if (value == null) {
+            throw new IllegalArgumentException("Missing option --" + name);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.spring_22.services.script;
+
+import java.util.List;
+
+public interface ScriptExecutionService {
+
+    ScriptResult run(List<String> lines, int batchSize, boolean parallel);
+}
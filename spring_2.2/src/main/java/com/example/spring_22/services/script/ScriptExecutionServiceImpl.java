@@ -0,0 +1,257 @@
+package com.example.spring_22.services.script;
+
+import com.example.spring_22.config.LibraryProperties;
+import com.example.spring_22.domain.Author;
+import com.example.spring_22.domain.Book;
+import com.example.spring_22.domain.Comment;
+import com.example.spring_22.domain.Genre;
+import com.example.spring_22.services.book.BookService;
+import com.example.spring_22.services.comment.CommentService;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Runs the write commands of the shell from a script, {@code batchSize} commands per transaction. In parallel
+ * mode every batch gets its own virtual thread, and a semaphore keeps at most {@link #concurrency()} of them
+ * inside the services, so batches wait on the semaphore instead of on the connection pool. Results keep the
+ * order of the script either way.
+ */
+@Service
+@RequiredArgsConstructor
+public class ScriptExecutionServiceImpl implements ScriptExecutionService {
+
+    private static final int NO_COMMAND = -1;
+
+    private final BookService bookService;
+
+    private final CommentService commentService;
+
+    private final DataSource dataSource;
+
+    private final LibraryProperties properties;
+
+    private final PlatformTransactionManager transactionManager;
+
+    private final EntityManager entityManager;
+
+    @Override
+    public ScriptResult run(List<String> lines, int batchSize, boolean parallel) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+        List<ScriptCommand> commands = ScriptParser.parse(lines);
+        List<List<ScriptCommand>> batches = new ArrayList<>();
+        for (int from = 0; from < commands.size(); from += batchSize) {
+            batches.add(commands.subList(from, Math.min(from + batchSize, commands.size())));
+        }
+        long startedAt = System.nanoTime();
+        int concurrency = parallel ? concurrency() : 1;
+        List<BatchResult> results = parallel ? runParallel(batches, concurrency) : runSequential(batches);
+        return new ScriptResult(results, concurrency, Duration.ofNanos(System.nanoTime() - startedAt));
+    }
+
+    /**
+     * Defaults to one less than the pool size: a book change keeps its connection while the after-commit
+     * listeners open their own transaction, so one connection must stay free for them to make progress.
+     */
+    private int concurrency() {
+        int configured = properties.getScript().getMaxConcurrency();
+        if (configured > 0) {
+            return configured;
+        }
+        try {
+            if (dataSource.isWrapperFor(HikariDataSource.class)) {
+                return Math.max(1, dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize() - 1);
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not read the connection pool size", e);
+        }
+        return 1;
+    }
+
+    private List<BatchResult> runSequential(List<List<ScriptCommand>> batches) {
+        List<BatchResult> results = new ArrayList<>(batches.size());
+        for (int i = 0; i < batches.size(); i++) {
+            results.add(execute(i + 1, batches.get(i)));
+        }
+        return results;
+    }
+
+    private List<BatchResult> runParallel(List<List<ScriptCommand>> batches, int concurrency) {
+        Semaphore permits = new Semaphore(concurrency);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<BatchResult>> futures = new ArrayList<>(batches.size());
+            for (int i = 0; i < batches.size(); i++) {
+                int number = i + 1;
+                List<ScriptCommand> batch = batches.get(i);
+                futures.add(executor.submit(() -> {
+                    permits.acquire();
+                    try {
+                        return execute(number, batch);
+                    } finally {
+                        permits.release();
+                    }
+                }));
+            }
+            List<BatchResult> results = new ArrayList<>(batches.size());
+            for (int i = 0; i < futures.size(); i++) {
+                results.add(await(i + 1, batches.get(i), futures.get(i)));
+            }
+            return results;
+        }
+    }
+
+    private BatchResult await(int number, List<ScriptCommand> batch, Future<BatchResult> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return rolledBack(number, batch, List.of(), NO_COMMAND, Duration.ZERO, "Interrupted");
+        } catch (ExecutionException e) {
+            return rolledBack(number, batch, List.of(), NO_COMMAND, Duration.ZERO, e.getCause().getMessage());
+        }
+    }
+
+    /**
+     * Runs the whole batch in one transaction, so the services join it instead of committing per command.
+     * The first failing command rolls the batch back and the remaining commands of the batch are skipped.
+     * Every command is flushed before the next one runs, so a constraint violation fails the command that
+     * caused it; a failure at commit is reported for the whole batch.
+     */
+    private BatchResult execute(int number, List<ScriptCommand> batch) {
+        List<String> outputs = new ArrayList<>(batch.size());
+        long startedAt = System.nanoTime();
+        try {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                for (ScriptCommand command : batch) {
+                    String output = dispatch(command);
+                    entityManager.flush();
+                    outputs.add(output);
+                }
+            });
+        } catch (RuntimeException e) {
+            int failedCommand = outputs.size() < batch.size() ? outputs.size() : NO_COMMAND;
+            return rolledBack(number, batch, outputs, failedCommand, Duration.ofNanos(System.nanoTime() - startedAt),
+                    e.getMessage());
+        }
+        List<CommandResult> results = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            results.add(new CommandResult(batch.get(i).lineNumber(), batch.get(i).text(), true, outputs.get(i)));
+        }
+        return new BatchResult(number, results, true, Duration.ofNanos(System.nanoTime() - startedAt), null);
+    }
+
+    /**
+     * {@code failedCommand} is the index of the command that failed, or {@link #NO_COMMAND} when the batch failed
+     * outside of its commands, in which case the error is reported on the batch.
+     */
+    private BatchResult rolledBack(int number, List<ScriptCommand> batch, List<String> outputs, int failedCommand,
+                                   Duration elapsed, String error) {
+        List<CommandResult> results = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            ScriptCommand command = batch.get(i);
+            String output;
+            if (i == failedCommand) {
+                output = error;
+            } else if (i < outputs.size()) {
+                output = "Rolled back: " + outputs.get(i);
+            } else {
+                output = "Skipped";
+            }
+            results.add(new CommandResult(command.lineNumber(), command.text(), false, output));
+        }
+        return new BatchResult(number, results, false, elapsed, failedCommand == NO_COMMAND ? error : null);
+    }
+
+    private String dispatch(ScriptCommand command) {
+        return switch (command.key()) {
+            case "a", "add" -> "Saved book id : " + bookService.saveBook(book(command, 0));
+            case "u", "update" -> {
+                long bookId = Long.parseLong(command.requiredOption("bookId"));
+                Book book = book(command, bookId);
+                String expectedVersion = command.option("expectedVersion");
+                if (expectedVersion != null) {
+                    book.setVersion(Long.parseLong(expectedVersion));
+                    bookService.updateBookById(book);
+                } else {
+                    bookService.editBookById(bookId, current -> {
+                        current.setName(book.getName());
+                        current.setAuthor(book.getAuthor());
+                        if (book.getGenres() != null) {
+                            current.setGenres(book.getGenres());
+                        }
+                    });
+                }
+                yield "Book by id " + bookId + " is updated";
+            }
+            case "d", "delete" -> {
+                long bookId = Long.parseLong(command.requiredOption("id"));
+                bookService.deleteBookById(bookId);
+                yield "Book by id " + bookId + " is deleted";
+            }
+            case "ac" -> "Saved comment id : " + commentService.addCommentToBook(Comment.builder()
+                    .text(command.option("commentText"))
+                    .book(Book.builder()
+                            .id(Long.parseLong(command.requiredOption("bookId")))
+                            .build())
+                    .build());
+            case "uc" -> {
+                long commentId = Long.parseLong(command.requiredOption("commentId"));
+                String expectedVersion = command.option("expectedVersion");
+                String newText = command.option("newText");
+                if (expectedVersion != null) {
+                    commentService.updateCommentTextById(commentId, Long.parseLong(expectedVersion), newText);
+                } else {
+                    commentService.editCommentTextById(commentId, text -> newText);
+                }
+                yield "Comment by id " + commentId + " is updated";
+            }
+            case "dc" -> {
+                long commentId = Long.parseLong(command.requiredOption("commentId"));
+                commentService.deleteCommentById(commentId);
+                yield "Comment by id " + commentId + " is deleted";
+            }
+            default -> throw new IllegalArgumentException("Command '" + command.key() + "' is not supported in scripts");
+        };
+    }
+
+    private Book book(ScriptCommand command, long bookId) {
+        Book book = Book.builder()
+                .id(bookId)
+                .name(command.requiredOption("bookName"))
+                .build();
+        String authorFullName = command.option("authorFullName");
+        if (authorFullName != null) {
+            book.setAuthor(Author.builder()
+                    .fullName(authorFullName)
+                    .build());
+        }
+        Set<Genre> genres = new LinkedHashSet<>();
+        for (String genreName : command.values("genreNames")) {
+            genres.add(Genre.builder()
+                    .genreName(genreName)
+                    .build());
+        }
+        if (!genres.isEmpty()) {
+            book.setGenres(genres);
+        }
+        return book;
+    }
+}
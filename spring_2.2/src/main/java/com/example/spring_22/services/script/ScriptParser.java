@@ -0,0 +1,80 @@
+package com.example.spring_22.services.script;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads shell-style lines such as {@code add --bookName "War and peace" --genreNames Novel Drama}.
+ * Blank lines and lines starting with {@code //} or {@code #} are skipped.
+ */
+public final class ScriptParser {
+
+    private ScriptParser() {
+    }
+
+    public static List<ScriptCommand> parse(List<String> lines) {
+        List<ScriptCommand> commands = new ArrayList<>(lines.size());
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i).strip();
+            if (line.isEmpty() || line.startsWith("//") || line.startsWith("#")) {
+                continue;
+            }
+            commands.add(parseLine(i + 1, line));
+        }
+        return commands;
+    }
+
+    private static ScriptCommand parseLine(int lineNumber, String line) {
+        List<String> tokens = tokenize(lineNumber, line);
+        Map<String, List<String>> options = new LinkedHashMap<>();
+        List<String> current = null;
+        for (String token : tokens.subList(1, tokens.size())) {
+            if (token.startsWith("--")) {
+                current = new ArrayList<>();
+                options.put(token.substring(2), current);
+            } else if (current == null) {
+                throw new IllegalArgumentException("Line " + lineNumber + ": value '" + token + "' without option");
+            } else {
+                current.add(token);
+            }
+        }
+        return new ScriptCommand(lineNumber, line, tokens.get(0), options);
+    }
+
+    private static List<String> tokenize(int lineNumber, String line) {
+        List<String> tokens = new ArrayList<>();
+        StringBuilder token = new StringBuilder();
+        char quote = 0;
+        boolean inToken = false;
+        for (char c : line.toCharArray()) {
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                } else {
+                    token.append(c);
+                }
+            } else if (c == '"' || c == '\'') {
+                quote = c;
+                inToken = true;
+            } else if (Character.isWhitespace(c)) {
+                if (inToken) {
+                    tokens.add(token.toString());
+                    token.setLength(0);
+                    inToken = false;
+                }
+            } else {
+                token.append(c);
+                inToken = true;
+            }
+        }
+        if (quote != 0) {
+            throw new IllegalArgumentException("Line " + lineNumber + ": unclosed quote");
+        }
+        if (inToken) {
+            tokens.add(token.toString());
+        }
+        return tokens;
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.spring_22.services.script;
+
+import java.time.Duration;
+import java.util.List;
+
+public record ScriptResult(List<BatchResult> batches, int concurrency, Duration elapsed) {
+
+    public List<CommandResult> results() {
+        return batches.stream()
+                .flatMap(batch -> batch.commands().stream())
+                .toList();
+    }
+
+    public long failures() {
+        return results().stream()
+                .filter(result -> !result.success())
+                .count();
+    }
+
+    public long rolledBackBatches() {
+        return batches.stream()
+                .filter(batch -> !batch.committed())
+                .count();
+    }
+
+    public double commandsPerSecond() {
+        long nanos = Math.max(elapsed.toNanos(), 1);
+        return results().size() * 1_000_000_000.0 / nanos;
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.spring_22.services.search;
+
+import com.example.spring_22.dao.search.SearchHit;
+
+import java.util.List;
+
+public interface BookSearchService {
+
+    List<SearchHit> search(String query, int offset, int limit);
+}
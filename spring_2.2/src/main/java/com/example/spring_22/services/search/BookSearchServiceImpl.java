@@ -0,0 +1,26 @@
+package com.example.spring_22.services.search;
+
+import com.example.spring_22.dao.search.BookSearchRepository;
+import com.example.spring_22.dao.search.SearchHit;
+import com.example.spring_22.dao.search.SearchTerms;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+public class BookSearchServiceImpl implements BookSearchService {
+
+    private final BookSearchRepository bookSearchRepository;
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<SearchHit> search(String query, int offset, int limit) {
+        if (offset < 0 || limit <= 0) {
+            throw new IllegalArgumentException("Offset must not be negative and limit must be positive");
+        }
+        return bookSearchRepository.search(SearchTerms.parse(query), offset, limit);
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.spring_22.services.search;
+
+import com.example.spring_22.index.PrefixIndex.Footprint;
+import com.example.spring_22.index.PrefixIndex.PrefixMatch;
+
+import java.util.List;
+
+public interface PrefixSearchService {
+
+    List<PrefixMatch> search(String prefix, int limit);
+
+    Footprint footprint();
+
+    void reload();
+}
@@ -0,0 +1,119 @@
+package com.example.spring_22.services.search;
+
+import com.example.spring_22.config.LibraryProperties;
+import com.example.spring_22.dao.book.BookRepository;
+import com.example.spring_22.domain.Book;
+import com.example.spring_22.index.PrefixIndex;
+import com.example.spring_22.index.PrefixIndex.Footprint;
+import com.example.spring_22.index.PrefixIndex.PrefixMatch;
+import com.example.spring_22.services.events.BookChangedEvent;
+import com.example.spring_22.services.events.BooksDeletedEvent;
+import com.example.spring_22.services.events.BooksImportedEvent;
+import com.example.spring_22.services.events.ChangeType;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Keeps a {@link PrefixIndex} of book and author names in memory. Readers use the current snapshot
+ * without locking; writers replace it after a full load or after committed book changes and deletions.
+ */
+@Service
+@RequiredArgsConstructor
+public class PrefixSearchServiceImpl implements PrefixSearchService {
+
+    private final BookRepository bookRepository;
+
+    private final LibraryProperties properties;
+
+    private final Lock writeLock = new ReentrantLock();
+
+    private volatile PrefixIndex index = PrefixIndex.empty();
+
+    @Override
+    public List<PrefixMatch> search(String prefix, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be positive");
+        }
+        return index.search(prefix, limit);
+    }
+
+    @Override
+    public Footprint footprint() {
+        return index.footprint();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void reload() {
+        writeLock.lock();
+        try {
+            PrefixIndex.Builder builder = PrefixIndex.builder();
+            try (Stream<Book> books = bookRepository.streamAll(properties.getBooks().getFetchSize())) {
+                books.forEach(book -> builder.add(book.getId(), book.getName(), authorName(book)));
+            }
+            index = builder.build();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @EventListener(ApplicationStartedEvent.class)
+    @Transactional(readOnly = true)
+    public void onApplicationStarted() {
+        reload();
+    }
+
+    /**
+     * Not read-only on purpose: the change was just committed on the primary and a replica may not have it yet.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void onBookChanged(BookChangedEvent event) {
+        writeLock.lock();
+        try {
+            // read under the lock, so the last writer always applies the latest committed state
+            Optional<Book> book = event.changeType() == ChangeType.DELETED
+                    ? Optional.empty()
+                    : bookRepository.findWithAuthorAndGenresById(event.bookId());
+            index = book.map(found -> index.with(found.getId(), found.getName(), authorName(found)))
+                    .orElseGet(() -> index.without(event.bookId()));
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void onBooksImported(BooksImportedEvent event) {
+        reload();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBooksDeleted(BooksDeletedEvent event) {
+        writeLock.lock();
+        try {
+            PrefixIndex changed = index;
+            for (long bookId : event.bookIds()) {
+                changed = changed.without(bookId);
+            }
+            index = changed;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private String authorName(Book book) {
+        return book.getAuthor() != null ? book.getAuthor().getFullName() : null;
+    }
+}
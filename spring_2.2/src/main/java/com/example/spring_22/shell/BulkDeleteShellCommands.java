@@ -0,0 +1,36 @@
+package com.example.spring_22.shell;
+
+import com.example.spring_22.dao.book.BookFilter;
+import com.example.spring_22.services.book.BookService;
+import com.example.spring_22.services.book.BulkDeleteResult;
+import com.example.spring_22.shell.aspect.CatchAndWrite;
+import lombok.RequiredArgsConstructor;
+import org.springframework.shell.standard.ShellComponent;
+import org.springframework.shell.standard.ShellMethod;
+import org.springframework.shell.standard.ShellOption;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+@RequiredArgsConstructor
+@ShellComponent
+public class BulkDeleteShellCommands {
+
+    private final BookService bookService;
+
+    @ShellMethod(value = "Delete books with their comments by ids, author, genre or id range", key = {"delete-books"})
+    @CatchAndWrite
+    public void deleteBooks(@ShellOption(defaultValue = ShellOption.NULL) long[] ids,
+                            @ShellOption(defaultValue = ShellOption.NULL) Long authorId,
+                            @ShellOption(defaultValue = ShellOption.NULL) Long genreId,
+                            @ShellOption(defaultValue = ShellOption.NULL) Long fromId,
+                            @ShellOption(defaultValue = ShellOption.NULL) Long toId) {
+        BookFilter filter = new BookFilter(ids == null ? null : Arrays.stream(ids).boxed().toList(),
+                authorId, genreId, fromId, toId);
+        BulkDeleteResult result = bookService.deleteBooks(filter);
+        System.out.println(String.format(Locale.ROOT,
+                "Deleted %d books, %d comments, %d genre links in %d ms (%.1f books/sec)",
+                result.books(), result.comments(), result.genreLinks(), result.elapsed().toMillis(),
+                result.booksPerSecond()));
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.spring_22.shell;
+
+import com.example.spring_22.services.datagen.DataGeneratorService;
+import com.example.spring_22.services.datagen.GenerationResult;
+import com.example.spring_22.services.datagen.GenerationSpec;
+import com.example.spring_22.shell.aspect.CatchAndWrite;
+import lombok.RequiredArgsConstructor;
+import org.springframework.shell.standard.ShellComponent;
+import org.springframework.shell.standard.ShellMethod;
+import org.springframework.shell.standard.ShellOption;
+
+import java.util.Locale;
+
+@RequiredArgsConstructor
+@ShellComponent
+public class DataGeneratorShellCommands {
+
+    private final DataGeneratorService dataGeneratorService;
+
+    @ShellMethod(value = "Generate synthetic authors, books, genres and comments", key = {"generate-data"})
+    @CatchAndWrite
+    public void generateData(@ShellOption(defaultValue = "100") int authors,
+                             @ShellOption(defaultValue = "10") int booksPerAuthor,
+                             @ShellOption(defaultValue = "20") int genres,
+                             @ShellOption(defaultValue = "2") int genresPerBook,
+                             @ShellOption(defaultValue = "1.1") double zipfExponent,
+                             @ShellOption(defaultValue = "3") int commentsPerBook,
+                             @ShellOption(defaultValue = "42") long seed,
+                             @ShellOption(defaultValue = "1000") int batchSize) {
+        GenerationResult result = dataGeneratorService.generate(new GenerationSpec(authors, booksPerAuthor, genres,
+                genresPerBook, zipfExponent, commentsPerBook, seed, batchSize));
+        System.out.println(String.format(Locale.ROOT,
+                "Generated %d authors, %d genres, %d books, %d book genres, %d comments in %d ms (%.1f rows/sec)",
+                result.authors(), result.genres(), result.books(), result.bookGenreLinks(), result.comments(),
+                result.elapsed().toMillis(), result.rowsPerSecond()));
+    }
+}
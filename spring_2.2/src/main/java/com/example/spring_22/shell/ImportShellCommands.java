@@ -0,0 +1,27 @@
+package com.example.spring_22.shell;
+
+import com.example.spring_22.services.bookimport.BookImportService;
+import com.example.spring_22.services.bookimport.ImportResult;
+import com.example.spring_22.shell.aspect.CatchAndWrite;
+import lombok.RequiredArgsConstructor;
+import org.springframework.shell.standard.ShellComponent;
+import org.springframework.shell.standard.ShellMethod;
+import org.springframework.shell.standard.ShellOption;
+
+import java.nio.file.Path;
+import java.util.Locale;
+
+@RequiredArgsConstructor
+@ShellComponent
+public class ImportShellCommands {
+
+    private final BookImportService bookImportService;
+
+    @ShellMethod(value = "Import books from csv or json lines file", key = {"import-books"})
+    @CatchAndWrite
+    public void importBooks(@ShellOption String file, @ShellOption(defaultValue = "1000") int batchSize) {
+        ImportResult result = bookImportService.importBooks(Path.of(file), batchSize);
+        System.out.println(String.format(Locale.ROOT, "Imported %d books in %d ms (%.1f rows/sec)",
+                result.rows(), result.elapsed().toMillis(), result.rowsPerSecond()));
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.spring_22.shell;
+
+import com.example.spring_22.metrics.MethodMetricsAspect;
+import com.example.spring_22.metrics.ShellCommandMetricsAspect;
+import com.example.spring_22.shell.aspect.CatchAndWrite;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.shell.standard.ShellComponent;
+import org.springframework.shell.standard.ShellMethod;
+import org.springframework.shell.standard.ShellOption;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+@RequiredArgsConstructor
+@ShellComponent
+public class MetricsShellCommands {
+
+    private static final String HIKARI_ACQUIRE = "hikaricp.connections.acquire";
+
+    private final MeterRegistry meterRegistry;
+
+    private final ObjectProvider<PrometheusMeterRegistry> prometheusMeterRegistry;
+
+    @ShellMethod(value = "Show method, shell command and connection pool metrics", key = {"metrics"})
+    @CatchAndWrite
+    public void showMetrics(@ShellOption(defaultValue = "10") int top,
+                            @ShellOption(defaultValue = ShellOption.NULL) String prometheusFile) throws IOException {
+        System.out.println("Slowest methods by total time:");
+        meterRegistry.find(MethodMetricsAspect.TIMER).timers().stream()
+                .sorted(Comparator.comparingDouble((Timer timer) -> timer.totalTime(TimeUnit.MILLISECONDS)).reversed())
+                .limit(top)
+                .forEach(timer -> System.out.println(String.format(Locale.ROOT, "  %s.%s: %s, errors=%d",
+                        timer.getId().getTag("class"), timer.getId().getTag("method"), describe(timer),
+                        errors(timer.getId().getTag("class"), timer.getId().getTag("method")))));
+        System.out.println("Shell commands:");
+        meterRegistry.find(ShellCommandMetricsAspect.TIMER).timers().forEach(timer -> {
+            String command = timer.getId().getTag("command");
+            DistributionSummary statements = meterRegistry.find(ShellCommandMetricsAspect.STATEMENTS)
+                    .tag("command", command).summary();
+            System.out.println(String.format(Locale.ROOT, "  %s: %s, statements mean=%.1f, max=%.0f",
+                    command, describe(timer), statements == null ? 0.0 : statements.mean(),
+                    statements == null ? 0.0 : statements.max()));
+        });
+        System.out.println("Connection pool wait:");
+        meterRegistry.find(HIKARI_ACQUIRE).timers().forEach(timer -> System.out.println(String.format(Locale.ROOT,
+                "  %s: count=%d, mean=%.3fms, max=%.3fms", timer.getId().getTag("pool"), timer.count(),
+                timer.mean(TimeUnit.MILLISECONDS), timer.max(TimeUnit.MILLISECONDS))));
+        if (prometheusFile != null) {
+            PrometheusMeterRegistry registry = prometheusMeterRegistry.getIfAvailable();
+            if (registry == null) {
+                throw new IllegalStateException("Prometheus registry is not configured");
+            }
+            Files.writeString(Path.of(prometheusFile), registry.scrape(), StandardCharsets.UTF_8);
+            System.out.println("Prometheus metrics written to " + prometheusFile);
+        }
+    }
+
+    private String describe(Timer timer) {
+        HistogramSnapshot snapshot = timer.takeSnapshot();
+        StringBuilder description = new StringBuilder(String.format(Locale.ROOT, "count=%d, mean=%.3fms, max=%.3fms",
+                snapshot.count(), snapshot.mean(TimeUnit.MILLISECONDS), snapshot.max(TimeUnit.MILLISECONDS)));
+        for (ValueAtPercentile percentile : snapshot.percentileValues()) {
+            description.append(String.format(Locale.ROOT, ", p%.0f=%.3fms",
+                    percentile.percentile() * 100, percentile.value(TimeUnit.MILLISECONDS)));
+        }
+        return description.toString();
+    }
+
+    private long errors(String className, String method) {
+        return (long) meterRegistry.find(MethodMetricsAspect.ERRORS)
+                .tags("class", className, "method", method)
+                .counters().stream()
+                .mapToDouble(Counter::count)
+                .sum();
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.spring_22.shell;
+
+import com.example.spring_22.services.outbox.ChangeEvent;
+import com.example.spring_22.services.outbox.OutboxRelay;
+import com.example.spring_22.services.outbox.OutboxRelay.RelayStats;
+import com.example.spring_22.services.outbox.OutboxService;
+import com.example.spring_22.shell.aspect.CatchAndWrite;
+import lombok.RequiredArgsConstructor;
+import org.springframework.shell.standard.ShellComponent;
+import org.springframework.shell.standard.ShellMethod;
+import org.springframework.shell.standard.ShellOption;
+
+import java.util.List;
+import java.util.Locale;
+
+@RequiredArgsConstructor
+@ShellComponent
+public class OutboxShellCommands {
+
+    private final OutboxService outboxService;
+
+    private final OutboxRelay outboxRelay;
+
+    @ShellMethod(value = "Show book and comment change events after an event id", key = {"events"})
+    @CatchAndWrite
+    public void showEvents(@ShellOption(defaultValue = "0") long afterId,
+                           @ShellOption(defaultValue = "20") int limit) {
+        List<ChangeEvent> events = outboxService.since(afterId, limit);
+        events.forEach(event -> System.out.println(String.format(Locale.ROOT, "%d %s %s %d (book %s) at %s",
+                event.eventId(), event.changeType(), event.aggregateType(), event.aggregateId(), event.bookId(),
+                event.createdAt())));
+        if (events.size() == limit) {
+            System.out.println(String.format(Locale.ROOT, "Next page: events --afterId %d --limit %d",
+                    events.get(events.size() - 1).eventId(), limit));
+        }
+    }
+
+    @ShellMethod(value = "Show outbox relay statistics", key = {"outbox-stats"})
+    @CatchAndWrite
+    public void showOutboxStats() {
+        RelayStats stats = outboxRelay.stats();
+        System.out.println(String.format(Locale.ROOT,
+                "outbox relay: running=%s, delivered=%d, failed=%d, cleanedUp=%d",
+                stats.running(), stats.delivered(), stats.failed(), stats.cleanedUp()));
+    }
+}
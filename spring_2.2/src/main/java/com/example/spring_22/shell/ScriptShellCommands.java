@@ -0,0 +1,48 @@
+package com.example.spring_22.shell;
+
+import com.example.spring_22.services.script.BatchResult;
+import com.example.spring_22.services.script.CommandResult;
+import com.example.spring_22.services.script.ScriptExecutionService;
+import com.example.spring_22.services.script.ScriptResult;
+import com.example.spring_22.shell.aspect.CatchAndWrite;
+import lombok.RequiredArgsConstructor;
+import org.springframework.shell.standard.ShellComponent;
+import org.springframework.shell.standard.ShellMethod;
+import org.springframework.shell.standard.ShellOption;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+
+@RequiredArgsConstructor
+@ShellComponent
+public class ScriptShellCommands {
+
+    private final ScriptExecutionService scriptExecutionService;
+
+    @ShellMethod(value = "Run add, update, delete and comment commands from a file in batches of one transaction each", key = {"run-script"})
+    @CatchAndWrite
+    public void runScript(@ShellOption String file,
+                          @ShellOption(defaultValue = "1") int batchSize,
+                          @ShellOption(defaultValue = "false") boolean parallel) throws IOException {
+        ScriptResult result = scriptExecutionService.run(Files.readAllLines(Path.of(file)), batchSize, parallel);
+        for (BatchResult batch : result.batches()) {
+            for (CommandResult commandResult : batch.commands()) {
+                System.out.println(String.format(Locale.ROOT, "%d: %s%s", commandResult.lineNumber(),
+                        commandResult.success() ? "" : "FAILED ", commandResult.output()));
+            }
+            if (batchSize > 1 || batch.error() != null) {
+                System.out.println(String.format(Locale.ROOT, "Batch %d (lines %d-%d) %s in %.1f ms%s",
+                        batch.number(), batch.firstLine(), batch.lastLine(),
+                        batch.committed() ? "committed" : "rolled back", batch.elapsed().toNanos() / 1_000_000.0,
+                        batch.error() != null ? ": " + batch.error() : ""));
+            }
+        }
+        System.out.println(String.format(Locale.ROOT,
+                "Ran %d commands in %d batches (%d failed commands, %d rolled back batches) with concurrency %d "
+                        + "in %d ms (%.1f commands/sec)",
+                result.results().size(), result.batches().size(), result.failures(), result.rolledBackBatches(),
+                result.concurrency(), result.elapsed().toMillis(), result.commandsPerSecond()));
+    }
+}
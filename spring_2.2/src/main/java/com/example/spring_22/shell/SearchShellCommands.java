@@ -0,0 +1,53 @@
+package com.example.spring_22.shell;
+
+import com.example.spring_22.dao.search.SearchHit;
+import com.example.spring_22.index.PrefixIndex.PrefixMatch;
+import com.example.spring_22.services.search.BookSearchService;
+import com.example.spring_22.services.search.PrefixSearchService;
+import com.example.spring_22.shell.aspect.CatchAndWrite;
+import lombok.RequiredArgsConstructor;
+import org.springframework.shell.standard.ShellComponent;
+import org.springframework.shell.standard.ShellMethod;
+import org.springframework.shell.standard.ShellOption;
+
+import java.text.MessageFormat;
+import java.util.List;
+import java.util.Locale;
+
+@RequiredArgsConstructor
+@ShellComponent
+public class SearchShellCommands {
+
+    private final BookSearchService bookSearchService;
+
+    private final PrefixSearchService prefixSearchService;
+
+    @ShellMethod(value = "Search books by name, author, genres and comments", key = {"search"})
+    @CatchAndWrite
+    public void search(@ShellOption String query,
+                       @ShellOption(defaultValue = "0") int offset,
+                       @ShellOption(defaultValue = "20") int limit) {
+        long startedAt = System.nanoTime();
+        List<SearchHit> hits = bookSearchService.search(query, offset, limit);
+        System.out.println(String.format(Locale.ROOT, "Found %d books in %.1f ms :", hits.size(),
+                (System.nanoTime() - startedAt) / 1_000_000.0));
+        hits.forEach(hit -> System.out.println(String.format(Locale.ROOT, "%.3f  Book{ id=%d, name='%s'}",
+                hit.score(), hit.bookId(), hit.bookName())));
+        if (hits.size() == limit) {
+            System.out.println(MessageFormat.format("Next page: search --query \"{0}\" --offset {1,number,#} --limit {2,number,#}",
+                    query, offset + limit, limit));
+        }
+    }
+
+    @ShellMethod(value = "Find books whose name or author starts with the given words", key = {"prefix-search", "ps"})
+    @CatchAndWrite
+    public void prefixSearch(@ShellOption String prefix,
+                             @ShellOption(defaultValue = "20") int limit) {
+        long startedAt = System.nanoTime();
+        List<PrefixMatch> matches = prefixSearchService.search(prefix, limit);
+        long elapsed = System.nanoTime() - startedAt;
+        matches.forEach(match -> System.out.println(String.format(Locale.ROOT, "Book{ id=%d, name='%s', author='%s'}",
+                match.bookId(), match.bookName(), match.authorName())));
+        System.out.println(String.format(Locale.ROOT, "Found %d books in %.3f ms", matches.size(), elapsed / 1_000_000.0));
+    }
+}
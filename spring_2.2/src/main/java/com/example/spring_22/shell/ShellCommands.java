@@ -1,10 +1,13 @@
 package com.example.spring_22.shell;
 
 
+import com.example.spring_22.dao.MultiGetResult;
 import com.example.spring_22.domain.Author;
 import com.example.spring_22.domain.Book;
 import com.example.spring_22.domain.Comment;
 import com.example.spring_22.domain.Genre;
+import com.example.spring_22.metrics.StatementScope;
+import com.example.spring_22.services.book.BookPatch;
 import com.example.spring_22.services.book.BookService;
 import com.example.spring_22.services.comment.CommentService;
 import com.example.spring_22.shell.aspect.CatchAndWrite;
@@ -15,10 +18,11 @@ import org.springframework.shell.standard.ShellOption;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.text.MessageFormat;
-import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.Set;
 
 import static java.util.Objects.nonNull;
 
@@ -35,7 +39,7 @@ public class ShellCommands {
     @Transactional
     public void addBook(@ShellOption String bookName, @ShellOption(defaultValue = "__NULL__") String authorFullName,
                         @ShellOption(defaultValue = "__NULL__") String... genreNames) {
-        List<Genre> genres = new ArrayList<>();
+        Set<Genre> genres = new LinkedHashSet<>();
         Book bookToBeSaved = Book.builder()
                 .name(bookName)
                 .build();
@@ -67,23 +71,43 @@ public class ShellCommands {
         }
     }
 
+    @ShellMethod(value = "Get books by ids", key = {"gm", "get-many"})
+    @CatchAndWrite
+    public void getBooksByIds(@ShellOption long[] ids) {
+        MultiGetResult<Book> result = bookService.getBooksByIds(Arrays.stream(ids).boxed().toList());
+        result.found().forEach(System.out::println);
+        if (!result.missingIds().isEmpty()) {
+            System.out.println(MessageFormat.format("Books not found: {0}", result.missingIds()));
+        }
+    }
+
     @ShellMethod(value = "Get all books", key = {"all"})
     @CatchAndWrite
-    public void getAllBooks() {
-        List<Book> foundBooks = bookService.getAllBooks();
-        System.out.println("Found books by are :\n" + foundBooks.stream()
-                .map(Book::toString)
-                .collect(Collectors.joining("\n")));
+    public void getAllBooks(@ShellOption(defaultValue = "0") long afterId,
+                            @ShellOption(defaultValue = "0") int limit) {
+        System.out.println("Found books by are :");
+        if (limit > 0) {
+            List<Book> foundBooks = bookService.getBooksPage(afterId, limit);
+            foundBooks.forEach(System.out::println);
+            if (foundBooks.size() == limit) {
+                System.out.println(MessageFormat.format("Next page: all --afterId {0,number,#} --limit {1,number,#}",
+                        foundBooks.get(foundBooks.size() - 1).getId(), limit));
+            }
+        } else {
+            bookService.getAllBooks(System.out::println);
+        }
     }
 
     @ShellMethod(value = "Update book by id", key = {"u", "update"})
     @CatchAndWrite
-    @Transactional
-    public void updateBook(@ShellOption long bookId, @ShellOption String bookName,
+    public void updateBook(@ShellOption long bookId,
+                           @ShellOption(defaultValue = "__NULL__") Long expectedVersion,
+                           @ShellOption String bookName,
                            @ShellOption(defaultValue = "__NULL__") String authorFullName,
                            @ShellOption(defaultValue = "__NULL__") String... genreNames) {
-        List<Genre> genres = new ArrayList<>();
+        Set<Genre> genres = new LinkedHashSet<>();
         Book bookToBeUpdated = Book.builder()
+                .id(bookId)
                 .name(bookName)
                 .build();
         if (nonNull(genreNames)) {
@@ -99,10 +123,56 @@ public class ShellCommands {
                     .fullName(authorFullName)
                     .build());
         }
-        bookService.updateBookById(bookToBeUpdated);
+        if (nonNull(expectedVersion)) {
+            bookToBeUpdated.setVersion(expectedVersion);
+            bookService.updateBookById(bookToBeUpdated);
+        } else {
+            bookService.editBookById(bookId, book -> {
+                book.setName(bookToBeUpdated.getName());
+                book.setAuthor(bookToBeUpdated.getAuthor());
+                if (nonNull(bookToBeUpdated.getGenres())) {
+                    book.setGenres(bookToBeUpdated.getGenres());
+                }
+            });
+        }
         System.out.println(MessageFormat.format("Book by id {0} is updated", bookId));
     }
 
+    @ShellMethod(value = "Change only the given fields of a book", key = {"p", "patch"})
+    @CatchAndWrite
+    public void patchBook(@ShellOption long bookId,
+                          @ShellOption(defaultValue = "__NULL__") Long expectedVersion,
+                          @ShellOption(defaultValue = "__NULL__") String bookName,
+                          @ShellOption(defaultValue = "__NULL__") String authorFullName,
+                          @ShellOption(defaultValue = "false") boolean removeAuthor,
+                          @ShellOption(defaultValue = "__NULL__") String... genreNames) {
+        BookPatch.BookPatchBuilder patch = BookPatch.builder()
+                .bookId(bookId)
+                .expectedVersion(expectedVersion)
+                .name(bookName)
+                .removeAuthor(removeAuthor);
+        if (nonNull(authorFullName)) {
+            patch.author(Author.builder()
+                    .fullName(authorFullName)
+                    .build());
+        }
+        if (nonNull(genreNames)) {
+            Set<Genre> genres = new LinkedHashSet<>();
+            for (String genreName : genreNames) {
+                genres.add(Genre.builder()
+                        .genreName(genreName)
+                        .build());
+            }
+            patch.genres(genres);
+        }
+        int statements;
+        try (StatementScope scope = StatementScope.open("patch")) {
+            bookService.patchBook(patch.build());
+            statements = scope.statementCount();
+        }
+        System.out.println(MessageFormat.format("Book by id {0,number,#} is patched with {1} statements", bookId, statements));
+    }
+
     @ShellMethod(value = "Delete book by id", key = {"d", "delete"})
     @CatchAndWrite
     @Transactional
@@ -114,23 +184,40 @@ public class ShellCommands {
     @ShellMethod(value = "Add comment", key = {"ac"})
     @CatchAndWrite
     @Transactional
-    public void addCommentToBook(@ShellOption String commentText, @ShellOption Long bookId) {
-        long savedCommentId = commentService.addCommentToBook(Comment.builder()
+    public void addCommentToBook(@ShellOption String commentText, @ShellOption Long bookId,
+                                 @ShellOption(defaultValue = "false") boolean async) {
+        Comment comment = Comment.builder()
+                .text(commentText)
                 .book(Book.builder()
                         .id(bookId)
                         .build())
-                .build());
+                .build();
+        if (async) {
+            commentService.enqueueCommentToBook(comment);
+            System.out.println(MessageFormat.format("Comment to book {0,number,#} is queued", bookId));
+            return;
+        }
+        long savedCommentId = commentService.addCommentToBook(comment);
         System.out.println("Saved comment id : " + savedCommentId);
     }
 
     @ShellMethod(value = "Get all comments by book id", key = {"c"})
     @CatchAndWrite
-    @Transactional
-    public void getAllCommentsByBookId(@ShellOption Long bookId) {
-        var comments = commentService.getAllCommentsOfBook(bookId);
-        System.out.println("Comments are : " + comments.stream()
-                .map(Comment::toString)
-                .collect(Collectors.joining("\n")));
+    public void getAllCommentsByBookId(@ShellOption Long bookId,
+                                       @ShellOption(defaultValue = "0") long afterId,
+                                       @ShellOption(defaultValue = "0") int limit) {
+        System.out.println(MessageFormat.format("Comments ({0,number,#}) are :",
+                commentService.countCommentsOfBook(bookId)));
+        if (limit > 0) {
+            List<Comment> comments = commentService.getCommentsPage(bookId, afterId, limit);
+            comments.forEach(System.out::println);
+            if (comments.size() == limit) {
+                System.out.println(MessageFormat.format("Next page: c --bookId {0,number,#} --afterId {1,number,#} --limit {2,number,#}",
+                        bookId, comments.get(comments.size() - 1).getId(), limit));
+            }
+        } else {
+            commentService.getAllCommentsOfBook(bookId, System.out::println);
+        }
     }
 
     @ShellMethod(value = "Delete comment by id", key = {"dc"})
@@ -143,9 +230,14 @@ public class ShellCommands {
 
     @ShellMethod(value = "Update comment text by id", key = {"uc"})
     @CatchAndWrite
-    @Transactional
-    public void updateCommentTextById(@ShellOption Long commentId, @ShellOption(defaultValue = "__NULL__") String newText) {
-        commentService.updateCommentTextById(commentId, newText);
+    public void updateCommentTextById(@ShellOption Long commentId,
+                                      @ShellOption(defaultValue = "__NULL__") Long expectedVersion,
+                                      @ShellOption(defaultValue = "__NULL__") String newText) {
+        if (nonNull(expectedVersion)) {
+            commentService.updateCommentTextById(commentId, expectedVersion, newText);
+        } else {
+            commentService.editCommentTextById(commentId, text -> newText);
+        }
         System.out.println(MessageFormat.format("Comment by id {0} is updated", commentId));
     }
 }
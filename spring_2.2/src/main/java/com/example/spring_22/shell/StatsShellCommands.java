@@ -0,0 +1,93 @@
+package com.example.spring_22.shell;
+
+import com.example.spring_22.cache.LookupCache;
+import com.example.spring_22.index.PrefixIndex.Footprint;
+import com.example.spring_22.services.comment.CommentWriteBehindQueue;
+import com.example.spring_22.services.comment.CommentWriteBehindQueue.WriteBehindStats;
+import com.example.spring_22.services.search.PrefixSearchService;
+import com.example.spring_22.shell.aspect.CatchAndWrite;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.shell.standard.ShellComponent;
+import org.springframework.shell.standard.ShellMethod;
+import org.springframework.shell.standard.ShellOption;
+
+import java.util.List;
+import java.util.Locale;
+
+@RequiredArgsConstructor
+@ShellComponent
+public class StatsShellCommands {
+
+    private final List<LookupCache<?>> lookupCaches;
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    private final PrefixSearchService prefixSearchService;
+
+    private final CommentWriteBehindQueue commentWriteBehindQueue;
+
+    @ShellMethod(value = "Show author and genre lookup cache statistics", key = {"cache-stats"})
+    @CatchAndWrite
+    public void showLookupCacheStats() {
+        lookupCaches.forEach(cache -> {
+            var stats = cache.stats();
+            System.out.println(String.format(Locale.ROOT,
+                    "%s: size=%d, hits=%d, misses=%d, hitRate=%.2f, evictions=%d",
+                    cache.getName(), cache.size(), stats.hitCount(), stats.missCount(), stats.hitRate(),
+                    stats.evictionCount()));
+        });
+    }
+
+    @ShellMethod(value = "Evict a name, or every entry, from the author and genre lookup caches",
+            key = {"cache-evict"})
+    @CatchAndWrite
+    public void evictLookupCaches(@ShellOption(defaultValue = "__NULL__") String name) {
+        if (name != null) {
+            lookupCaches.forEach(cache -> cache.invalidate(name));
+            System.out.println("Evicted '" + name + "' from lookup caches");
+        } else {
+            lookupCaches.forEach(LookupCache::invalidateAll);
+            System.out.println("Evicted all lookup cache entries");
+        }
+    }
+
+    @ShellMethod(value = "Show Hibernate second-level cache region statistics", key = {"l2-stats"})
+    @CatchAndWrite
+    public void showSecondLevelCacheStats() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        for (String regionName : statistics.getSecondLevelCacheRegionNames()) {
+            CacheRegionStatistics region = statistics.getCacheRegionStatistics(regionName);
+            if (region == null) {
+                continue;
+            }
+            long requests = region.getHitCount() + region.getMissCount();
+            System.out.println(String.format(Locale.ROOT,
+                    "%s: hits=%d, misses=%d, puts=%d, hitRate=%.2f",
+                    regionName, region.getHitCount(), region.getMissCount(), region.getPutCount(),
+                    requests == 0 ? 0.0 : (double) region.getHitCount() / requests));
+        }
+    }
+
+    @ShellMethod(value = "Show prefix index size and estimated memory footprint", key = {"prefix-index-stats"})
+    @CatchAndWrite
+    public void showPrefixIndexStats() {
+        Footprint footprint = prefixSearchService.footprint();
+        System.out.println(String.format(Locale.ROOT,
+                "prefix index: terms=%d, postings=%d, books=%d, memory=%.1f MB (%d bytes)",
+                footprint.terms(), footprint.postingEntries(), footprint.books(),
+                footprint.estimatedBytes() / (1024.0 * 1024.0), footprint.estimatedBytes()));
+    }
+
+    @ShellMethod(value = "Show write-behind comment queue statistics", key = {"comment-queue-stats"})
+    @CatchAndWrite
+    public void showCommentQueueStats() {
+        WriteBehindStats stats = commentWriteBehindQueue.stats();
+        System.out.println(String.format(Locale.ROOT,
+                "comment queue: running=%s, pending=%d, written=%d, failed=%d",
+                stats.running(), stats.pending(), stats.written(), stats.failed()));
+    }
+}
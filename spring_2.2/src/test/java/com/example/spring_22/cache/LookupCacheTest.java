@@ -0,0 +1,102 @@
+package com.example.spring_22.cache;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DisplayName("Кэш справочников должен:")
+class LookupCacheTest {
+
+    private final LookupCache<String> sut = new LookupCache<>("test", 10, Duration.ofMinutes(1));
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    @DisplayName("Сохранять значение вне транзакции сразу")
+    void shouldPutValueImmediatelyWithoutTransaction() {
+        //when
+        sut.put("key", "value");
+
+        //then
+        assertThat(sut.get("key")).contains("value");
+    }
+
+    @Test
+    @DisplayName("Сохранять значение из транзакции только после коммита")
+    void shouldPutValueAfterCommit() {
+        //given
+        TransactionSynchronizationManager.initSynchronization();
+
+        //when
+        sut.put("key", "value");
+
+        //then
+        assertThat(sut.get("key")).isEmpty();
+        TransactionSynchronizationUtils.triggerAfterCommit();
+        assertThat(sut.get("key")).contains("value");
+    }
+
+    @Test
+    @DisplayName("Не сохранять значение из откаченной транзакции")
+    void shouldNotPutValueAfterRollback() {
+        //given
+        TransactionSynchronizationManager.initSynchronization();
+
+        //when
+        sut.put("key", "value");
+        TransactionSynchronizationUtils.invokeAfterCompletion(TransactionSynchronizationManager.getSynchronizations(),
+                TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        //then
+        assertThat(sut.get("key")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Удалять значение сразу и ещё раз после коммита")
+    void shouldInvalidateValueNowAndAfterCommit() {
+        //given
+        sut.put("key", "value");
+        TransactionSynchronizationManager.initSynchronization();
+
+        //when
+        sut.invalidate("key");
+        var synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        var afterInvalidate = sut.get("key");
+        sut.put("key", "put by another transaction");
+        TransactionSynchronizationUtils.invokeAfterCommit(synchronizations);
+
+        //then
+        assertThat(afterInvalidate).isEmpty();
+        assertThat(sut.get("key")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Считать попадания и промахи")
+    void shouldCountHitsAndMisses() {
+        //given
+        sut.put("key", "value");
+
+        //when
+        sut.get("key");
+        sut.get("key");
+        sut.get("other");
+
+        //then
+        assertEquals(2, sut.stats().hitCount());
+        assertEquals(1, sut.stats().missCount());
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.spring_22.config;
+
+import com.example.spring_22.domain.Author;
+import com.example.spring_22.domain.Book;
+import com.example.spring_22.services.book.BookService;
+import jakarta.persistence.EntityManager;
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Маршрутизация на реплику должна:")
+@SpringBootTest
+@TestPropertySource(value = "/application-test.yml", factory = YamlPropertySourceFactory.class, properties = {
+        "spring.datasource.url=jdbc:h2:mem:primary;DB_CLOSE_DELAY=-1",
+        "library.datasource.replica.jdbc-url=jdbc:h2:mem:replica;DB_CLOSE_DELAY=-1;"
+                + "INIT=RUNSCRIPT FROM 'classpath:replica-schema.sql'",
+        "library.datasource.replica.driver-class-name=org.h2.Driver",
+        "library.datasource.replica.username=sa",
+        "spring.sql.init.mode=never"})
+class ReplicaRoutingConfigTest {
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    @Qualifier("primaryDataSource")
+    private DataSource primaryDataSource;
+
+    @Autowired
+    @Qualifier("replicaDataSource")
+    private DataSource replicaDataSource;
+
+    @BeforeEach
+    void fillReplica() {
+        var replica = new JdbcTemplate(replicaDataSource);
+        replica.update("merge into author (id, full_name) key (id) values (100, 'Replica author')");
+        replica.update("merge into book (id, name, author_id) key (id) values (100, 'Replica book', 100)");
+    }
+
+    @Test
+    @DisplayName("Читать книгу в read-only транзакции с реплики")
+    void shouldReadBookFromReplica() {
+        //when
+        var book = bookService.getBookById(100L);
+
+        //then
+        assertThat(book)
+                .map(Book::getName)
+                .contains("Replica book");
+        assertThat(count(primaryDataSource, "Replica book")).isZero();
+    }
+
+    @Test
+    @DisplayName("Сохранять книгу в основную базу")
+    void shouldWriteBookToPrimary() {
+        //when
+        bookService.saveBook(Book.builder()
+                .name("Primary book")
+                .author(Author.builder()
+                        .fullName("Primary author")
+                        .build())
+                .build());
+
+        //then
+        assertThat(count(primaryDataSource, "Primary book")).isEqualTo(1);
+        assertThat(count(replicaDataSource, "Primary book")).isZero();
+    }
+
+    @Test
+    @DisplayName("Не делать снимков и не сбрасывать сессию в read-only транзакции")
+    void shouldLoadEntitiesReadOnly() {
+        //given
+        var transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+
+        //when
+        var readOnlyState = transactionTemplate.execute(status -> {
+            var session = entityManager.unwrap(Session.class);
+            var book = entityManager.find(Book.class, 100L);
+            return session.isReadOnly(book) && session.getHibernateFlushMode() == FlushMode.MANUAL;
+        });
+
+        //then
+        assertThat(readOnlyState).isTrue();
+    }
+
+    private long count(DataSource dataSource, String bookName) {
+        return new JdbcTemplate(dataSource).queryForObject("select count(*) from book where name = ?",
+                Long.class, bookName);
+    }
+}
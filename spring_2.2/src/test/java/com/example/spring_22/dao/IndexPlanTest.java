@@ -0,0 +1,168 @@
+package com.example.spring_22.dao;
+
+import com.example.spring_22.config.YamlPropertySourceFactory;
+import com.example.spring_22.dao.bookimport.BookImportRepositoryJdbc;
+import com.example.spring_22.dao.datagen.DataGeneratorRepositoryJdbc;
+import com.example.spring_22.services.datagen.DataGeneratorServiceImpl;
+import com.example.spring_22.services.datagen.GenerationSpec;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares PostgreSQL plans with and without the indexes from the Liquibase migrations on a generated
+ * dataset of one million books. Needs Docker and is opt-in:
+ * {@code mvn test -Dtest=IndexPlanTest -Dlibrary.explain-tests=true}.
+ */
+@DisplayName("Индексы из миграций должны:")
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({DataGeneratorServiceImpl.class, DataGeneratorRepositoryJdbc.class, BookImportRepositoryJdbc.class})
+@TestPropertySource(value = "/application-test.yml", factory = YamlPropertySourceFactory.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Testcontainers(disabledWithoutDocker = true)
+@EnabledIfSystemProperty(named = "library.explain-tests", matches = "true")
+class IndexPlanTest {
+
+    @Container
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine")
+            .withUrlParam("reWriteBatchedInserts", "true");
+
+    private static boolean generated;
+
+    @Autowired
+    private DataGeneratorServiceImpl dataGenerator;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @DynamicPropertySource
+    static void postgresProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+        registry.add("spring.datasource.driver-class-name", POSTGRES::getDriverClassName);
+        registry.add("spring.liquibase.enabled", () -> true);
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "none");
+        registry.add("spring.sql.init.mode", () -> "never");
+    }
+
+    @BeforeEach
+    void generateDataset() {
+        if (generated) {
+            return;
+        }
+        dataGenerator.generate(new GenerationSpec(10_000, 100, 50, 2, 1.1, 1, 42, 5_000));
+        jdbcTemplate.execute("vacuum analyze");
+        generated = true;
+    }
+
+    @Test
+    @DisplayName("Искать комментарии книги по индексу comment(book_id, id)")
+    void shouldFindCommentsOfBookByIndex() {
+        //given
+        var sql = "select * from comment where book_id = " + maxId("book");
+
+        //when
+        var planWithIndex = explain(sql);
+        var planWithoutIndex = explainWithout("idx_comment_book_id_id", sql);
+
+        //then
+        assertThat(planWithIndex).contains("idx_comment_book_id_id");
+        assertThat(planWithoutIndex).contains("Seq Scan on comment");
+    }
+
+    @Test
+    @DisplayName("Искать книги автора по индексу book(author_id)")
+    void shouldFindBooksOfAuthorByIndex() {
+        //given
+        var sql = "select * from book where author_id = " + maxId("author");
+
+        //when
+        var planWithIndex = explain(sql);
+        var planWithoutIndex = explainWithout("idx_book_author_id", sql);
+
+        //then
+        assertThat(planWithIndex).contains("idx_book_author_id");
+        assertThat(planWithoutIndex).contains("Seq Scan on book");
+    }
+
+    @Test
+    @DisplayName("Искать книги жанра по индексу book_genre(genre_id)")
+    void shouldFindBooksOfGenreByIndex() {
+        //given
+        long rarestGenreId = jdbcTemplate.queryForObject("select genre_id from book_genre " +
+                "group by genre_id order by count(*), genre_id limit 1", Long.class);
+        var sql = "select book_id from book_genre where genre_id = " + rarestGenreId;
+
+        //when
+        var planWithIndex = explain(sql);
+        var planWithoutIndex = explainWithout("idx_book_genre_genre_id", sql);
+
+        //then
+        assertThat(planWithIndex).contains("idx_book_genre_genre_id");
+        assertThat(planWithoutIndex).contains("Seq Scan on book_genre");
+    }
+
+    @Test
+    @DisplayName("Отдавать страницу списка книг по первичному ключу без сортировки всей таблицы")
+    void shouldListBooksPageByPrimaryKey() {
+        //given
+        long afterId = maxId("book") / 2;
+        var idsSql = "select id from book where id > " + afterId + " order by id limit 50";
+        var booksSql = "select b.*, a.*, g.* from book b "
+                + "left join author a on a.id = b.author_id "
+                + "left join book_genre bg on bg.book_id = b.id "
+                + "left join genre g on g.id = bg.genre_id "
+                + "where b.id in (" + String.join(", ", jdbcTemplate.queryForList(idsSql, String.class)) + ") "
+                + "order by b.id";
+
+        //when
+        var idsPlan = explain(idsSql);
+        var booksPlan = explain(booksSql);
+
+        //then
+        assertThat(idsPlan).contains("Index Only Scan using pk_book");
+        assertThat(idsPlan).doesNotContain("Sort");
+        assertThat(booksPlan).contains("pk_book");
+        assertThat(booksPlan).doesNotContain("Seq Scan on book ");
+    }
+
+    private long maxId(String table) {
+        return jdbcTemplate.queryForObject("select max(id) from " + table, Long.class);
+    }
+
+    private String explain(String sql) {
+        return String.join("\n", jdbcTemplate.queryForList("explain " + sql, String.class));
+    }
+
+    private String explainWithout(String index, String sql) {
+        return new TransactionTemplate(transactionManager).execute(status -> {
+            jdbcTemplate.execute("drop index " + index);
+            String plan = explain(sql);
+            status.setRollbackOnly();
+            return plan;
+        });
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.spring_22.dao;
+
+import com.example.spring_22.config.YamlPropertySourceFactory;
+import com.example.spring_22.dao.author.AuthorRepositoryJpa;
+import com.example.spring_22.dao.genre.GenreRepositoryJpa;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Upsert авторов и жанров должен:")
+@DataJpaTest
+@Import({AuthorRepositoryJpa.class, GenreRepositoryJpa.class})
+@TestPropertySource(value = "/application-test.yml", factory = YamlPropertySourceFactory.class)
+@Sql(value = "classpath:data.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_CLASS)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class NaturalKeyUpsertConcurrencyTest {
+
+    private static final int THREADS = 8;
+
+    private static final int ITERATIONS = 50;
+
+    @Autowired
+    private AuthorRepositoryJpa authorRepository;
+
+    @Autowired
+    private GenreRepositoryJpa genreRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    @DisplayName("Создавать ровно одного автора при параллельных upsert")
+    void shouldCreateSingleAuthorUnderConcurrentUpserts() throws Exception {
+        //given
+        var names = List.of("Concurrent author 1", "Concurrent author 2", "Concurrent author 3");
+
+        //when
+        var ids = upsertConcurrently(names, name -> authorRepository.upsertByFullName(name).getId());
+
+        //then
+        names.forEach(name -> assertThat(ids.get(name)).hasSize(1));
+        assertThat(jdbcTemplate.queryForObject("select count(*) from author where full_name like 'Concurrent author%'",
+                Long.class))
+                .isEqualTo(names.size());
+    }
+
+    @Test
+    @DisplayName("Создавать ровно один жанр при параллельных upsert")
+    void shouldCreateSingleGenreUnderConcurrentUpserts() throws Exception {
+        //given
+        var names = List.of("Concurrent genre 1", "Concurrent genre 2", "Concurrent genre 3");
+
+        //when
+        var ids = upsertConcurrently(names, name -> genreRepository.upsertByName(name).getId());
+
+        //then
+        names.forEach(name -> assertThat(ids.get(name)).hasSize(1));
+        assertThat(jdbcTemplate.queryForObject("select count(*) from genre where genre_name like 'Concurrent genre%'",
+                Long.class))
+                .isEqualTo(names.size());
+    }
+
+    private Map<String, Set<Long>> upsertConcurrently(List<String> names, Function<String, Long> upsert)
+            throws Exception {
+        var ids = new ConcurrentHashMap<String, Set<Long>>();
+        var transactionTemplate = new TransactionTemplate(transactionManager);
+        var start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < THREADS; thread++) {
+                int offset = thread;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < ITERATIONS; i++) {
+                        String name = names.get((offset + i) % names.size());
+                        Long id = transactionTemplate.execute(status -> upsert.apply(name));
+                        ids.computeIfAbsent(name, key -> ConcurrentHashMap.newKeySet()).add(id);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return ids;
+    }
+}
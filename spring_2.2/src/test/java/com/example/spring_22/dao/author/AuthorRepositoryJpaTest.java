@@ -2,6 +2,7 @@ package com.example.spring_22.dao.author;
 
 import com.example.spring_22.config.YamlPropertySourceFactory;
 import com.example.spring_22.domain.Author;
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -11,6 +12,7 @@ import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.context.jdbc.Sql;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 
 @DisplayName("Dao для работы с авторами должно:")
 @DataJpaTest
@@ -22,6 +24,9 @@ class AuthorRepositoryJpaTest {
     @Autowired
     private AuthorRepositoryJpa sut;
 
+    @Autowired
+    private EntityManager entityManager;
+
     @Test
     @DisplayName("Возврашать автора по полному имени")
     void shouldGetByFullname() {
@@ -57,4 +62,63 @@ class AuthorRepositoryJpaTest {
                 .usingRecursiveComparison()
                 .isEqualTo(expectedAuthor);
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Возвращать существующую запись при upsert")
+    void shouldUpsertExistingAuthor() {
+        //given
+        var expectedAuthor = Author.builder()
+                .id(1L)
+                .fullName("Pushkin")
+                .build();
+
+        //when
+        var actualAuthor = sut.upsertByFullName(expectedAuthor.getFullName());
+
+        //then
+        assertThat(actualAuthor)
+                .usingRecursiveComparison()
+                .isEqualTo(expectedAuthor);
+    }
+
+    @Test
+    @DisplayName("Брать id нового автора при upsert из того же блока, что и Hibernate")
+    void shouldUpsertNewAuthorWithIdOfHibernateBlock() {
+        //given
+        var persistedAuthor = Author.builder()
+                .fullName("Persisted")
+                .build();
+        entityManager.persist(persistedAuthor);
+
+        //when
+        var upsertedAuthor = sut.upsertByFullName("Upserted");
+
+        //then
+        assertEquals(persistedAuthor.getId() + 1, upsertedAuthor.getId());
+        assertThat(sut.getByFullName("Upserted"))
+                .map(Author::getId)
+                .contains(upsertedAuthor.getId());
+    }
+
+    @Test
+    @DisplayName("Повторять upsert с новым id, если выданный id уже занят")
+    void shouldRetryUpsertWithNewIdWhenIdIsTaken() {
+        //given
+        var persistedAuthor = Author.builder()
+                .fullName("Persisted")
+                .build();
+        entityManager.persist(persistedAuthor);
+        entityManager.createNativeQuery("insert into author (id, full_name) values (?, 'Squatter')")
+                .setParameter(1, persistedAuthor.getId() + 1)
+                .executeUpdate();
+
+        //when
+        var upsertedAuthor = sut.upsertByFullName("Upserted");
+
+        //then
+        assertEquals(persistedAuthor.getId() + 2, upsertedAuthor.getId());
+        assertThat(sut.getByFullName("Upserted"))
+                .map(Author::getId)
+                .contains(upsertedAuthor.getId());
+    }
+}
@@ -4,6 +4,10 @@ import com.example.spring_22.config.YamlPropertySourceFactory;
 import com.example.spring_22.domain.Author;
 import com.example.spring_22.domain.Book;
 import com.example.spring_22.domain.Genre;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.OptimisticLockException;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -14,8 +18,10 @@ import org.springframework.test.context.jdbc.Sql;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 @DisplayName("Dao для работы с книгами должно:")
@@ -28,6 +34,9 @@ class BookRepositoryJpaTest {
     @Autowired
     private BookRepositoryJpa sut;
 
+    @Autowired
+    private EntityManager entityManager;
+
     @Test
     @DisplayName("Сохранять книгу")
     void shouldSaveBook() {
@@ -57,7 +66,7 @@ class BookRepositoryJpaTest {
                         .id(1L)
                         .fullName("Pushkin")
                         .build())
-                .genres(List.of(Genre.builder()
+                .genres(Set.of(Genre.builder()
                         .id(1L)
                         .genreName("Adventure")
                         .build()))
@@ -74,6 +83,82 @@ class BookRepositoryJpaTest {
                 .isEqualTo(Optional.of(expectedBook));
     }
 
+    @Test
+    @DisplayName("Находить книгу с автором и жанрами одним запросом")
+    void shouldFindBookWithAuthorAndGenresInOneStatement() {
+        //given
+        var statistics = clearedStatistics();
+
+        //when
+        var actualBook = sut.findWithAuthorAndGenresById(3L);
+
+        //then
+        assertThat(actualBook)
+                .isPresent()
+                .get()
+                .satisfies(book -> {
+                    assertEquals("Rubina", book.getAuthor().getFullName());
+                    assertThat(book.getGenres())
+                            .extracting(Genre::getGenreName)
+                            .containsExactlyInAnyOrder("Adventure", "Romance");
+                });
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    @DisplayName("Находить страницу книг с авторами и жанрами двумя запросами")
+    void shouldFindPageOfBooksInTwoStatements() {
+        //given
+        var statistics = clearedStatistics();
+
+        //when
+        var page = sut.findPage(0L, 3);
+
+        //then
+        assertThat(page)
+                .hasSize(3)
+                .allSatisfy(book -> assertThat(book.getAuthor()).isNotNull());
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    @DisplayName("Находить книги по списку id с авторами и жанрами, по запросу на порцию")
+    void shouldFindAllBooksByIdsInRequestOrder() {
+        //given
+        var statistics = clearedStatistics();
+
+        //when
+        var result = sut.findAllByIds(List.of(3L, 42L, 1L, 3L), 2);
+
+        //then
+        assertThat(result.found())
+                .extracting(Book::getId)
+                .containsExactly(3L, 1L);
+        assertThat(result.found().get(0).getGenres())
+                .extracting(Genre::getGenreName)
+                .containsExactlyInAnyOrder("Adventure", "Romance");
+        assertEquals("Pushkin", result.found().get(1).getAuthor().getFullName());
+        assertThat(result.missingIds())
+                .containsExactly(42L);
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    @DisplayName("Возвращать поток книг с авторами и жанрами одним запросом")
+    void shouldStreamAllBooksInOneStatement() {
+        //given
+        var statistics = clearedStatistics();
+
+        //when
+        try (var books = sut.streamAll(2)) {
+            assertThat(books.map(book -> book.getGenres().size()))
+                    .containsExactly(1, 1, 2);
+        }
+
+        //then
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
     @Test
     @DisplayName("Находить все книги")
     void shouldFindAllBooks() {
@@ -85,23 +170,31 @@ class BookRepositoryJpaTest {
     }
 
     @Test
-    @DisplayName("Обновлять название книги по id")
-    void shouldUpdateBookNameById() {
-        //given
-        var expectedBook = Book.builder()
-                .id(1L)
-                .name("New")
-                .build();
-
+    @DisplayName("Находить страницу книг после заданного id")
+    void shouldFindPageOfBooks() {
         //when
-        sut.updateNameById(expectedBook.getId(), expectedBook.getName());
+        var firstPage = sut.findPage(0L, 2);
+        var secondPage = sut.findPage(firstPage.get(firstPage.size() - 1).getId(), 2);
 
         //then
-        assertThat(sut.findById(expectedBook.getId()))
-                .isPresent()
-                .usingRecursiveComparison()
-                .ignoringFields("value.author", "value.genres", "value.comments")
-                .isEqualTo(Optional.of(expectedBook));
+        assertThat(firstPage)
+                .extracting(Book::getId)
+                .containsExactly(1L, 2L);
+        assertThat(secondPage)
+                .extracting(Book::getId)
+                .containsExactly(3L);
+    }
+
+    @Test
+    @DisplayName("Возвращать все книги потоком")
+    void shouldStreamAllBooks() {
+        //when
+        try (var books = sut.streamAll(2)) {
+
+            //then
+            assertThat(books.map(Book::getId))
+                    .containsExactly(1L, 2L, 3L);
+        }
     }
 
     @Test
@@ -118,6 +211,50 @@ class BookRepositoryJpaTest {
                 .isEmpty();
     }
 
+    @Test
+    @DisplayName("Удалять книгу с комментариями по id")
+    void shouldDeleteBookWithCommentsById() {
+        //when
+        sut.deleteById(1L);
+
+        //then
+        entityManager.clear();
+        assertThat(sut.findById(1L))
+                .isEmpty();
+        assertThat(entityManager.createQuery("select c.id from Comment c", Long.class).getResultList())
+                .isEmpty();
+    }
+
+    @Test
+    @DisplayName("Находить id книг по жанру и диапазону id")
+    void shouldFindIdsByFilter() {
+        //when
+        var byGenre = sut.findIds(BookFilter.byGenreId(2L));
+        var byAuthorInRange = sut.findIds(new BookFilter(null, 2L, null, 3L, 10L));
+        var byIds = sut.findIds(BookFilter.byIds(List.of(3L, 1L, 42L)));
+
+        //then
+        assertThat(byGenre).containsExactly(2L, 3L);
+        assertThat(byAuthorInRange).containsExactly(3L);
+        assertThat(byIds).containsExactly(1L, 3L);
+    }
+
+    @Test
+    @DisplayName("Удалять книги, их комментарии и связи с жанрами порциями")
+    void shouldDeleteAllByIdsInChunks() {
+        //given
+        var statistics = clearedStatistics();
+
+        //when
+        var deleted = sut.deleteAllByIds(List.of(1L, 3L), 1);
+
+        //then
+        assertEquals(new BookRepository.DeletedRows(2, 2, 3), deleted);
+        assertEquals(6, statistics.getPrepareStatementCount());
+        assertThat(sut.findIds(BookFilter.byIdRange(1L, 3L)))
+                .containsExactly(2L);
+    }
+
     @Test
     @DisplayName("Добавлять жанр к книге")
     void shouldAddGenreToBook() {
@@ -133,7 +270,7 @@ class BookRepositoryJpaTest {
                         .id(1L)
                         .fullName("Pushkin")
                         .build())
-                .genres(List.of(Genre.builder()
+                .genres(Set.of(Genre.builder()
                         .id(1L)
                         .genreName("Adventure")
                         .build(),
@@ -163,7 +300,7 @@ class BookRepositoryJpaTest {
                 .id(1L)
                 .name("Regular adventure novel")
                 .author(newAuthor)
-                .genres(List.of(Genre.builder()
+                .genres(Set.of(Genre.builder()
                         .id(1L)
                         .genreName("Adventure")
                         .build()))
@@ -191,7 +328,7 @@ class BookRepositoryJpaTest {
                         .id(1L)
                         .fullName("Pushkin")
                         .build())
-                .genres(List.of())
+                .genres(Set.of())
                 .build();
 
         //when
@@ -220,7 +357,7 @@ class BookRepositoryJpaTest {
                         .id(1L)
                         .fullName("Pushkin")
                         .build())
-                .genres(List.of())
+                .genres(Set.of())
                 .build();
 
         //when
@@ -233,4 +370,120 @@ class BookRepositoryJpaTest {
                 .ignoringFields("value.comments")
                 .isEqualTo(Optional.of(expectedBook));
     }
+
+    @Test
+    @DisplayName("Заменять жанры книги одним удалением и одной вставкой")
+    void shouldReplaceBookGenres() {
+        //given
+        var statistics = clearedStatistics();
+
+        //when
+        sut.replaceGenres(1L, Set.of(2L));
+
+        //then
+        assertEquals(3, statistics.getPrepareStatementCount());
+        assertThat(sut.findWithAuthorAndGenresById(1L))
+                .isPresent()
+                .get()
+                .satisfies(book -> assertThat(book.getGenres())
+                        .extracting(Genre::getId)
+                        .containsExactly(2L));
+    }
+
+    @Test
+    @DisplayName("Не изменять связи книги, если набор жанров не изменился")
+    void shouldNotWriteWhenGenresUnchanged() {
+        //given
+        var statistics = clearedStatistics();
+
+        //when
+        sut.replaceGenres(3L, Set.of(1L, 2L));
+
+        //then
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    @DisplayName("Менять название, автора и жанры книги одним обновлением и пакетной разницей жанров")
+    void shouldPatchBook() {
+        //given
+        var loadedBook = sut.findById(1L).orElseThrow();
+        var statistics = entityManager.getEntityManagerFactory()
+                .unwrap(SessionFactory.class)
+                .getStatistics();
+        statistics.clear();
+
+        //when
+        sut.patch(new BookRepository.BookChanges(1L, null, "New", true, 2L, Set.of(2L)));
+
+        //then
+        assertEquals(4, statistics.getPrepareStatementCount());
+        assertThat(entityManager.contains(loadedBook)).isFalse();
+        assertThat(sut.findWithAuthorAndGenresById(1L))
+                .isPresent()
+                .get()
+                .satisfies(book -> {
+                    assertEquals("New", book.getName());
+                    assertEquals("Rubina", book.getAuthor().getFullName());
+                    assertThat(book.getGenres())
+                            .extracting(Genre::getId)
+                            .containsExactly(2L);
+                });
+    }
+
+    @Test
+    @DisplayName("Менять только название книги одним запросом")
+    void shouldPatchOnlyBookName() {
+        //given
+        var statistics = clearedStatistics();
+
+        //when
+        sut.patch(new BookRepository.BookChanges(2L, null, "New", false, null, null));
+
+        //then
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertThat(sut.findWithAuthorAndGenresById(2L))
+                .isPresent()
+                .get()
+                .satisfies(book -> {
+                    assertEquals("New", book.getName());
+                    assertEquals("Rubina", book.getAuthor().getFullName());
+                });
+    }
+
+    @Test
+    @DisplayName("Не изменять несуществующую книгу")
+    void shouldNotPatchMissingBook() {
+        //when
+        var thrown = catchThrowable(() -> sut.patch(new BookRepository.BookChanges(42L, null, "New", false, null, null)));
+
+        //then
+        assertThat(thrown).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("Не изменять книгу по устаревшей версии")
+    void shouldNotPatchBookOnVersionConflict() {
+        //when
+        var thrown = catchThrowable(() -> sut.patch(new BookRepository.BookChanges(3L, 1L, "New", false, null, Set.of())));
+
+        //then
+        assertThat(thrown).isInstanceOf(OptimisticLockException.class);
+        assertThat(sut.findWithAuthorAndGenresById(3L))
+                .isPresent()
+                .get()
+                .satisfies(book -> {
+                    assertEquals("Romance-adventure novel", book.getName());
+                    assertThat(book.getGenres()).hasSize(2);
+                });
+    }
+
+    private Statistics clearedStatistics() {
+        entityManager.clear();
+        var statistics = entityManager.getEntityManagerFactory()
+                .unwrap(SessionFactory.class)
+                .getStatistics();
+        statistics.clear();
+        return statistics;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,70 @@
+package com.example.spring_22.dao.book;
+
+import com.example.spring_22.config.YamlPropertySourceFactory;
+import com.example.spring_22.domain.Genre;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Runs without a test transaction: a read-write cache entry is only visible to sessions opened after it was
+ * put, so every read here gets its own session. The tests therefore must not write.
+ */
+@DisplayName("Кэш второго уровня для книг должен:")
+@DataJpaTest
+@Import(BookRepositoryJpa.class)
+@TestPropertySource(value = "/application-test.yml", factory = YamlPropertySourceFactory.class,
+        properties = "spring.jpa.properties.hibernate.cache.use_second_level_cache=true")
+@Sql(value = "classpath:data.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_CLASS)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class BookSecondLevelCacheTest {
+
+    @Autowired
+    private BookRepositoryJpa sut;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @BeforeEach
+    void evictCache() {
+        entityManager.getEntityManagerFactory().getCache().evictAll();
+    }
+
+    @Test
+    @DisplayName("Загружать автора и жанры книги из кэша второго уровня")
+    void shouldLoadAuthorAndGenresFromSecondLevelCache() {
+        //given
+        sut.findById(2L);
+        var statistics = entityManager.getEntityManagerFactory()
+                .unwrap(SessionFactory.class)
+                .getStatistics();
+        statistics.clear();
+
+        //when
+        var actualBook = sut.findById(2L);
+
+        //then
+        assertThat(actualBook)
+                .isPresent()
+                .get()
+                .satisfies(book -> {
+                    assertEquals("Rubina", book.getAuthor().getFullName());
+                    assertThat(book.getGenres())
+                            .extracting(Genre::getGenreName)
+                            .containsExactly("Romance");
+                });
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+}
@@ -3,6 +3,9 @@ package com.example.spring_22.dao.comment;
 import com.example.spring_22.config.YamlPropertySourceFactory;
 import com.example.spring_22.domain.Book;
 import com.example.spring_22.domain.Comment;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.OptimisticLockException;
+import org.hibernate.SessionFactory;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -13,8 +16,11 @@ import org.springframework.test.context.jdbc.Sql;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.IntStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.assertj.core.api.Assertions.tuple;
 
 @DisplayName("Dao для работы с комментариями должно:")
 @DataJpaTest
@@ -26,22 +32,109 @@ class CommentRepositoryJpaTest {
     @Autowired
     private CommentRepositoryJpa sut;
 
+    @Autowired
+    private EntityManager entityManager;
+
     @Test
     @DisplayName("Сохранять комментарий")
     void shouldSaveComment() {
         //given
         var expectedComment = Comment.builder()
-                .id(3L)
                 .text("new")
                 .build();
 
         //when
-        var actualComment = sut.save(expectedComment);
+        var savedComment = sut.save(expectedComment);
+        entityManager.flush();
+        entityManager.clear();
 
         //then
-        assertThat(actualComment)
+        assertThat(savedComment.getId())
+                .isGreaterThan(2L);
+        assertThat(sut.findById(savedComment.getId()))
+                .isPresent()
                 .usingRecursiveComparison()
-                .isEqualTo(expectedComment);
+                .ignoringFields("value.book")
+                .isEqualTo(Optional.of(expectedComment));
+    }
+
+    @Test
+    @DisplayName("Находить комментарии по списку id в порядке запроса")
+    void shouldFindAllCommentsByIdsInRequestOrder() {
+        //when
+        var result = sut.findAllByIds(List.of(2L, 99L, 1L, 2L), 2);
+
+        //then
+        assertThat(result.found())
+                .extracting(Comment::getText)
+                .containsExactly("BAD", "GOOD");
+        assertThat(result.missingIds())
+                .containsExactly(99L);
+    }
+
+    @Test
+    @DisplayName("Сохранять несколько комментариев пакетной вставкой")
+    void shouldSaveSeveralCommentsInBatch() {
+        //given
+        var book = entityManager.getReference(Book.class, 2L);
+        var comments = IntStream.range(0, 5)
+                .mapToObj(i -> Comment.builder()
+                        .text("text " + i)
+                        .book(book)
+                        .build())
+                .toList();
+        var statistics = entityManager.getEntityManagerFactory()
+                .unwrap(SessionFactory.class)
+                .getStatistics();
+        statistics.clear();
+
+        //when
+        comments.forEach(sut::save);
+        entityManager.flush();
+
+        //then
+        assertThat(statistics.getEntityInsertCount())
+                .isEqualTo(comments.size());
+        assertThat(statistics.getPrepareStatementCount())
+                .isLessThanOrEqualTo(2);
+        entityManager.clear();
+        assertThat(sut.findAllByIds(comments.stream().map(Comment::getId).toList(), 10).found())
+                .extracting(Comment::getText)
+                .containsExactly("text 0", "text 1", "text 2", "text 3", "text 4");
+    }
+
+    @Test
+    @DisplayName("Сохранять пачку комментариев без загрузки книги")
+    void shouldSaveAllCommentsWithoutLoadingBook() {
+        //given
+        var comments = IntStream.range(0, 5)
+                .mapToObj(i -> Comment.builder()
+                        .text("queued " + i)
+                        .book(Book.builder()
+                                .id(3L)
+                                .build())
+                        .build())
+                .toList();
+        var statistics = entityManager.getEntityManagerFactory()
+                .unwrap(SessionFactory.class)
+                .getStatistics();
+        statistics.clear();
+
+        //when
+        var savedComments = sut.saveAll(comments);
+
+        //then
+        assertThat(savedComments)
+                .allMatch(comment -> comment.getId() > 0);
+        assertThat(statistics.getEntityInsertCount())
+                .isEqualTo(comments.size());
+        assertThat(statistics.getEntityLoadCount())
+                .isZero();
+        entityManager.clear();
+        assertThat(sut.findAllByIds(savedComments.stream().map(Comment::getId).toList(), 10).found())
+                .extracting(comment -> comment.getBook().getId(), Comment::getText)
+                .containsExactly(tuple(3L, "queued 0"), tuple(3L, "queued 1"), tuple(3L, "queued 2"),
+                        tuple(3L, "queued 3"), tuple(3L, "queued 4"));
     }
 
     @Test
@@ -88,6 +181,36 @@ class CommentRepositoryJpaTest {
                 .isEqualTo(expectedComments);
     }
 
+    @Test
+    @DisplayName("Находить страницу комментариев книги после заданного id")
+    void shouldFindCommentsPageByBookId() {
+        //when
+        var firstPage = sut.findByBookId(1L, 0L, 1);
+        var secondPage = sut.findByBookId(1L, firstPage.get(0).getId(), 1);
+        var lastPage = sut.findByBookId(1L, secondPage.get(0).getId(), 1);
+
+        //then
+        assertThat(firstPage)
+                .extracting(Comment::getId)
+                .containsExactly(1L);
+        assertThat(secondPage)
+                .extracting(Comment::getId)
+                .containsExactly(2L);
+        assertThat(lastPage)
+                .isEmpty();
+    }
+
+    @Test
+    @DisplayName("Считать комментарии книги")
+    void shouldCountCommentsByBookId() {
+        //when
+        var count = sut.countByBookId(1L);
+
+        //then
+        assertThat(count)
+                .isEqualTo(2L);
+    }
+
     @Test
     @DisplayName("Обновлять текст комментария по id")
     void shouldUpdateCommentTextById() {
@@ -95,10 +218,11 @@ class CommentRepositoryJpaTest {
         var expectedComment = Comment.builder()
                 .id(1L)
                 .text("new")
+                .version(1L)
                 .build();
 
         //when
-        sut.updateTextById(expectedComment.getId(), expectedComment.getText());
+        sut.updateTextById(expectedComment.getId(), 0L, expectedComment.getText());
 
         //then
         var actualComment = sut.findById(expectedComment.getId());
@@ -109,6 +233,20 @@ class CommentRepositoryJpaTest {
                 .isEqualTo(Optional.of(expectedComment));
     }
 
+    @Test
+    @DisplayName("Не обновлять текст комментария по устаревшей версии")
+    void shouldNotUpdateCommentTextOnVersionConflict() {
+        //given
+        sut.updateTextById(1L, 0L, "first");
+
+        //when
+        var thrown = catchThrowable(() -> sut.updateTextById(1L, 0L, "second"));
+
+        //then
+        assertThat(thrown).isInstanceOf(OptimisticLockException.class);
+        assertThat(sut.findVersionById(1L)).contains(1L);
+    }
+
     @Test
     @DisplayName("Удалять комментарий по id")
     void shouldDeleteCommentById() {
@@ -139,10 +277,14 @@ class CommentRepositoryJpaTest {
         sut.updateCommentBook(expectedComment, book);
 
         //then
-        assertThat(sut.findAllByBookId(book.getId()))
+        var actualComments = sut.findAllByBookId(book.getId());
+        assertThat(actualComments)
                 .hasSize(1)
                 .usingRecursiveComparison()
-                .ignoringFields("book")
+                .ignoringFields("book", "version")
                 .isEqualTo(List.of(expectedComment));
+        assertThat(actualComments)
+                .extracting(Comment::getVersion)
+                .containsExactly(1L);
     }
 }
\ No newline at end of file
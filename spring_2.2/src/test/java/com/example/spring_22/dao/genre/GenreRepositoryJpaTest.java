@@ -57,4 +57,22 @@ class GenreRepositoryJpaTest {
                 .usingRecursiveComparison()
                 .isEqualTo(expectedGenre);
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Возвращать существующую запись при upsert")
+    void shouldUpsertExistingGenre() {
+        //given
+        var expectedGenre = Genre.builder()
+                .id(1L)
+                .genreName("Adventure")
+                .build();
+
+        //when
+        var actualGenre = sut.upsertByName(expectedGenre.getGenreName());
+
+        //then
+        assertThat(actualGenre)
+                .usingRecursiveComparison()
+                .isEqualTo(expectedGenre);
+    }
+}
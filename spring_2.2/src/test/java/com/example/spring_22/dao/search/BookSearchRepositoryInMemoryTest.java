@@ -0,0 +1,154 @@
+package com.example.spring_22.dao.search;
+
+import com.example.spring_22.config.YamlPropertySourceFactory;
+import com.example.spring_22.domain.Author;
+import com.example.spring_22.domain.Book;
+import com.example.spring_22.services.events.BookChangedEvent;
+import com.example.spring_22.services.events.BooksImportedEvent;
+import com.example.spring_22.services.events.ChangeType;
+import com.example.spring_22.services.events.CommentChangedEvent;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@DisplayName("Поиск книг в памяти должен:")
+@DataJpaTest
+@Import(BookSearchRepositoryInMemory.class)
+@TestPropertySource(value = "/application-test.yml", factory = YamlPropertySourceFactory.class)
+@Sql(value = "classpath:data.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_CLASS)
+class BookSearchRepositoryInMemoryTest {
+
+    @Autowired
+    private BookSearchRepositoryInMemory sut;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    /**
+     * Test transactions roll back after the index has seen their changes, so the next search rebuilds it.
+     */
+    @AfterEach
+    void markIndexStale() {
+        sut.onBooksImported(new BooksImportedEvent(0, List.of()));
+    }
+
+    @Test
+    @DisplayName("Находить книги по названию и жанру")
+    void shouldFindBooksByNameAndGenre() {
+        //when
+        var hits = sut.search(SearchTerms.parse("Adventure"), 0, 10);
+
+        //then
+        assertThat(hits)
+                .extracting(SearchHit::bookId)
+                .containsExactly(1L, 3L);
+    }
+
+    @Test
+    @DisplayName("Находить книги по автору и комментариям")
+    void shouldFindBooksByAuthorAndComment() {
+        //when
+        var byAuthor = sut.search(SearchTerms.parse("pushkin"), 0, 10);
+        var byComment = sut.search(SearchTerms.parse("good"), 0, 10);
+
+        //then
+        assertThat(byAuthor)
+                .extracting(SearchHit::bookId)
+                .containsExactly(1L);
+        assertThat(byComment)
+                .extracting(SearchHit::bookId)
+                .containsExactly(1L);
+    }
+
+    @Test
+    @DisplayName("Ставить совпадение по названию выше совпадения по комментарию")
+    void shouldRankNameAboveComment() {
+        //when
+        var hits = sut.search(SearchTerms.parse("romance good"), 0, 10);
+
+        //then
+        assertThat(hits)
+                .extracting(SearchHit::bookId)
+                .containsExactly(2L, 3L, 1L);
+    }
+
+    @Test
+    @DisplayName("Отдавать результаты постранично")
+    void shouldPageResults() {
+        //when
+        var firstPage = sut.search(SearchTerms.parse("novel"), 0, 2);
+        var secondPage = sut.search(SearchTerms.parse("novel"), 2, 2);
+
+        //then
+        assertThat(firstPage)
+                .extracting(SearchHit::bookId)
+                .containsExactly(1L, 2L);
+        assertThat(secondPage)
+                .extracting(SearchHit::bookId)
+                .containsExactly(3L);
+    }
+
+    @Test
+    @DisplayName("Добавлять в индекс созданную книгу")
+    void shouldIndexCreatedBook() {
+        //given
+        assertThat(sut.search(SearchTerms.parse("saga"), 0, 10)).isEmpty();
+        var book = Book.builder()
+                .name("Winter saga")
+                .author(entityManager.getReference(Author.class, 1L))
+                .build();
+        entityManager.persist(book);
+        entityManager.flush();
+
+        //when
+        sut.onBookChanged(new BookChangedEvent(book.getId(), ChangeType.CREATED));
+        var hits = sut.search(SearchTerms.parse("saga"), 0, 10);
+
+        //then
+        assertThat(hits)
+                .extracting(SearchHit::bookId, SearchHit::bookName)
+                .containsExactly(tuple(book.getId(), "Winter saga"));
+    }
+
+    @Test
+    @DisplayName("Переиндексировать только изменённую книгу, убирая её старые термы")
+    void shouldReindexOnlyChangedBook() {
+        //given
+        assertThat(sut.search(SearchTerms.parse("regular"), 0, 10))
+                .extracting(SearchHit::bookId)
+                .containsExactly(1L, 2L);
+        entityManager.createQuery("update Book b set b.name = 'Winter saga' where b.id = 2").executeUpdate();
+        entityManager.createQuery("update Comment c set c.text = 'Sleepy' where c.id = 1").executeUpdate();
+
+        //when
+        sut.onBookChanged(new BookChangedEvent(2L, ChangeType.UPDATED));
+        sut.onCommentChanged(new CommentChangedEvent(1L, 1L, ChangeType.UPDATED));
+        var byOldName = sut.search(SearchTerms.parse("regular"), 0, 10);
+        var byNewName = sut.search(SearchTerms.parse("saga"), 0, 10);
+        var byOldComment = sut.search(SearchTerms.parse("good"), 0, 10);
+        var byNewComment = sut.search(SearchTerms.parse("sleepy"), 0, 10);
+
+        //then
+        assertThat(byOldName)
+                .extracting(SearchHit::bookId)
+                .containsExactly(1L);
+        assertThat(byNewName)
+                .extracting(SearchHit::bookId, SearchHit::bookName)
+                .containsExactly(tuple(2L, "Winter saga"));
+        assertThat(byOldComment).isEmpty();
+        assertThat(byNewComment)
+                .extracting(SearchHit::bookId)
+                .containsExactly(1L);
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.spring_22.index;
+
+import com.example.spring_22.index.PrefixIndex.PrefixMatch;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.assertj.core.api.Assertions.tuple;
+
+@DisplayName("Префиксный индекс должен:")
+class PrefixIndexTest {
+
+    private final PrefixIndex sut = PrefixIndex.builder()
+            .add(1, "Regular adventure novel", "Pushkin")
+            .add(2, "Regular romance novel", "Rubina")
+            .add(3, "Romance-adventure novel", "Rubina")
+            .build();
+
+    @Test
+    @DisplayName("Находить книги по префиксу названия и автора")
+    void shouldFindBooksByPrefix() {
+        //when
+        var byName = sut.search("Rom", 10);
+        var byAuthor = sut.search("rub", 10);
+
+        //then
+        assertThat(byName)
+                .extracting(PrefixMatch::bookId)
+                .containsExactly(2L, 3L);
+        assertThat(byAuthor)
+                .extracting(PrefixMatch::bookId)
+                .containsExactly(2L, 3L);
+    }
+
+    @Test
+    @DisplayName("Требовать совпадения всех слов запроса")
+    void shouldIntersectQueryWords() {
+        //when
+        var matches = sut.search("adv rub", 10);
+
+        //then
+        assertThat(matches)
+                .extracting(PrefixMatch::bookId, PrefixMatch::bookName, PrefixMatch::authorName)
+                .containsExactly(tuple(3L, "Romance-adventure novel", "Rubina"));
+    }
+
+    @Test
+    @DisplayName("Ограничивать количество результатов")
+    void shouldLimitMatches() {
+        //when
+        var matches = sut.search("nov", 2);
+
+        //then
+        assertThat(matches)
+                .extracting(PrefixMatch::bookId)
+                .containsExactly(1L, 2L);
+    }
+
+    @Test
+    @DisplayName("Отражать добавление, изменение и удаление книги в новой версии индекса")
+    void shouldApplyChangesToNewVersion() {
+        //when
+        var added = sut.with(4, "Winter saga", "Pushkin");
+        var renamed = added.with(1, "Summer saga", "Pushkin");
+        var deleted = renamed.without(4);
+
+        //then
+        assertThat(sut.search("saga", 10)).isEmpty();
+        assertThat(added.search("saga", 10))
+                .extracting(PrefixMatch::bookId)
+                .containsExactly(4L);
+        assertThat(renamed.search("saga", 10))
+                .extracting(PrefixMatch::bookId)
+                .containsExactly(1L, 4L);
+        assertThat(renamed.search("regular", 10))
+                .extracting(PrefixMatch::bookId)
+                .containsExactly(2L);
+        assertThat(deleted.search("pushkin", 10))
+                .extracting(PrefixMatch::bookId, PrefixMatch::bookName)
+                .containsExactly(tuple(1L, "Summer saga"));
+        assertThat(deleted.search("winter", 10)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Находить и менять книги, разложенные по нескольким блокам")
+    void shouldSearchAndChangeAcrossBlocks() {
+        //given
+        var builder = PrefixIndex.builder();
+        for (long id = 1; id <= 1000; id++) {
+            builder.add(id, "Volume" + id, "Author" + id % 7);
+        }
+        var index = builder.build();
+
+        //when
+        var changed = index.with(500, "Epilogue", "Author1").without(999).with(1001, "Volume1001", "Author0");
+        var byPrefix = changed.search("volume99", 100);
+        var byTwoPrefixes = changed.search("vol author1", 1000);
+
+        //then
+        assertThat(byPrefix)
+                .extracting(PrefixMatch::bookId)
+                .containsExactly(99L, 990L, 991L, 992L, 993L, 994L, 995L, 996L, 997L, 998L);
+        assertThat(byTwoPrefixes).hasSize(143);
+        assertThat(changed.search("epilogue", 10))
+                .extracting(PrefixMatch::bookId, PrefixMatch::authorName)
+                .containsExactly(tuple(500L, "Author1"));
+        assertThat(changed.footprint().books()).isEqualTo(1000);
+        assertThat(index.search("volume500", 10)).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("Считать термы, вхождения и книги")
+    void shouldReportFootprint() {
+        //when
+        var footprint = sut.footprint();
+
+        //then
+        assertThat(footprint.terms()).isEqualTo(6);
+        assertThat(footprint.postingEntries()).isEqualTo(12);
+        assertThat(footprint.books()).isEqualTo(3);
+        assertThat(footprint.estimatedBytes()).isPositive();
+    }
+
+    @Test
+    @DisplayName("Требовать добавления книг по возрастанию id при построении")
+    void shouldRejectUnorderedBooks() {
+        //given
+        var builder = PrefixIndex.builder().add(2, "name", null);
+
+        //when
+        var thrown = catchThrowable(() -> builder.add(1, "name", null));
+
+        //then
+        assertThat(thrown).isInstanceOf(IllegalArgumentException.class);
+    }
+}
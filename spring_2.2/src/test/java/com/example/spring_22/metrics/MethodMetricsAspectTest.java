@@ -0,0 +1,110 @@
+package com.example.spring_22.metrics;
+
+import com.example.spring_22.cache.LookupCache;
+import com.example.spring_22.config.LibraryProperties;
+import com.example.spring_22.dao.genre.GenreRepository;
+import com.example.spring_22.domain.Genre;
+import com.example.spring_22.services.genre.GenreService;
+import com.example.spring_22.services.genre.GenreServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import java.time.Duration;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@DisplayName("Аспект метрик методов должен:")
+class MethodMetricsAspectTest {
+
+    private final GenreRepository genreRepository = mock(GenreRepository.class);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final LibraryProperties properties = new LibraryProperties();
+
+    private GenreService sut;
+
+    @BeforeEach
+    void setUp() {
+        var factory = new AspectJProxyFactory(new GenreServiceImpl(genreRepository,
+                new LookupCache<>("genres", 10, Duration.ofMinutes(1))));
+        factory.addInterface(GenreService.class);
+        factory.addAspect(new MethodMetricsAspect(meterRegistry, properties));
+        sut = factory.getProxy();
+    }
+
+    @Test
+    @DisplayName("Записывать время вызова метода сервиса")
+    void shouldRecordServiceCall() {
+        //given
+        var genre = new Genre(0, "Adventure");
+        when(genreRepository.upsertByName("Adventure")).thenReturn(genre);
+
+        //when
+        sut.saveGenreIfNotExists(genre);
+
+        //then
+        var timer = meterRegistry.find(MethodMetricsAspect.TIMER)
+                .tags("class", "GenreServiceImpl", "method", "saveGenreIfNotExists")
+                .timer();
+        assertThat(timer).isNotNull();
+        assertThat(timer.count()).isEqualTo(1);
+        assertThat(timer.takeSnapshot().percentileValues()).hasSize(3);
+        assertThat(meterRegistry.find(MethodMetricsAspect.ERRORS).counters()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Считать ошибки и пробрасывать исключение дальше")
+    void shouldCountErrors() {
+        //given
+        var genre = new Genre(0, "Romance");
+        when(genreRepository.upsertByName("Romance")).thenThrow(new IllegalStateException("boom"));
+
+        //when
+        var thrown = catchThrowable(() -> sut.saveGenreIfNotExists(genre));
+
+        //then
+        assertThat(thrown).isInstanceOf(IllegalStateException.class);
+        var errors = meterRegistry.find(MethodMetricsAspect.ERRORS)
+                .tags("method", "saveGenreIfNotExists", "exception", "IllegalStateException")
+                .counter();
+        assertThat(errors).isNotNull();
+        assertThat(errors.count()).isEqualTo(1);
+        assertThat(meterRegistry.find(MethodMetricsAspect.TIMER).timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Публиковать гистограмму только для методов, перечисленных в настройках")
+    void shouldPublishHistogramOnlyForConfiguredMethods() {
+        //given
+        var prometheusRegistry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+        var factory = new AspectJProxyFactory(new GenreServiceImpl(genreRepository,
+                new LookupCache<>("genres", 10, Duration.ofMinutes(1))));
+        factory.addInterface(GenreService.class);
+        factory.addAspect(new MethodMetricsAspect(prometheusRegistry, properties));
+        GenreService service = factory.getProxy();
+        var genre = new Genre(0, "Adventure");
+        when(genreRepository.upsertByName("Adventure")).thenReturn(genre);
+
+        //when
+        service.saveGenreIfNotExists(genre);
+        var withoutHistogram = prometheusRegistry.scrape();
+        properties.getMetrics().setHistogramMethods(Set.of("GenreServiceImpl.saveGenreIfNotExists"));
+        prometheusRegistry.clear();
+        service.saveGenreIfNotExists(genre);
+        var withHistogram = prometheusRegistry.scrape();
+
+        //then
+        assertThat(withoutHistogram).doesNotContain("library_method_seconds_bucket");
+        assertThat(withHistogram).contains("library_method_seconds_bucket");
+    }
+}
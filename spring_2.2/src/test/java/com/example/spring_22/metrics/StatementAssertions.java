@@ -0,0 +1,33 @@
+package com.example.spring_22.metrics;
+
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Query budgets for JPA tests. Counts the statements prepared on the test thread, so the test
+ * context must use the {@code application-test.yml} statement inspector. The author and genre upserts
+ * record their JDBC statements too; the {@code JdbcTemplate} repositories are outside the budget.
+ */
+public final class StatementAssertions {
+
+    private StatementAssertions() {
+    }
+
+    public static <T> T assertMaxStatements(int max, Supplier<T> action) {
+        try (StatementScope scope = StatementScope.open("test")) {
+            T result = action.get();
+            assertThat(scope.statementCount())
+                    .as("statements prepared: %s", scope.statements())
+                    .isLessThanOrEqualTo(max);
+            return result;
+        }
+    }
+
+    public static void assertMaxStatements(int max, Runnable action) {
+        assertMaxStatements(max, () -> {
+            action.run();
+            return null;
+        });
+    }
+}
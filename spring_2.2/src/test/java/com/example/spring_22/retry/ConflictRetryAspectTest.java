@@ -0,0 +1,114 @@
+package com.example.spring_22.retry;
+
+import com.example.spring_22.config.LibraryProperties;
+import com.example.spring_22.dao.comment.CommentRepository;
+import com.example.spring_22.domain.Comment;
+import com.example.spring_22.services.book.BookService;
+import com.example.spring_22.services.comment.CommentService;
+import com.example.spring_22.services.comment.CommentServiceImpl;
+import com.example.spring_22.services.comment.CommentWriteBehindQueue;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@DisplayName("Аспект повтора при конфликте версий должен:")
+class ConflictRetryAspectTest {
+
+    private final CommentRepository commentRepository = mock(CommentRepository.class);
+
+    private final LibraryProperties properties = new LibraryProperties();
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private CommentService sut;
+
+    @BeforeEach
+    void setUp() {
+        properties.getRetry().setInitialBackoff(Duration.ofMillis(1));
+        properties.getRetry().setMaxBackoff(Duration.ofMillis(2));
+        var factory = new AspectJProxyFactory(new CommentServiceImpl(commentRepository, mock(BookService.class),
+                properties, mock(ApplicationEventPublisher.class), mock(CommentWriteBehindQueue.class)));
+        factory.addInterface(CommentService.class);
+        factory.addAspect(new ConflictRetryAspect(properties, meterRegistry));
+        sut = factory.getProxy();
+    }
+
+    @Test
+    @DisplayName("Перечитывать комментарий и применять правку заново, пока конфликт не исчезнет")
+    void shouldReapplyEditToLatestCommentUntilNoConflict() {
+        //given
+        when(commentRepository.findById(1L)).thenReturn(
+                Optional.of(comment(0L, "text")),
+                Optional.of(comment(1L, "text!")),
+                Optional.of(comment(2L, "text!!")));
+        var conflict = new OptimisticLockingFailureException("conflict");
+        doThrow(conflict).when(commentRepository).updateTextById(1L, 0L, "text!");
+        doThrow(conflict).when(commentRepository).updateTextById(1L, 1L, "text!!");
+
+        //when
+        sut.editCommentTextById(1L, text -> text + "!");
+
+        //then
+        verify(commentRepository, times(1)).updateTextById(1L, 2L, "text!!!");
+        assertThat(meterRegistry.get(ConflictRetryAspect.CONFLICTS).tag("outcome", "retried").counter().count())
+                .isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Пробрасывать конфликт после последней попытки")
+    void shouldRethrowWhenAttemptsAreExhausted() {
+        //given
+        properties.getRetry().setMaxAttempts(2);
+        when(commentRepository.findById(1L)).thenReturn(Optional.of(comment(0L, "text")));
+        doThrow(new OptimisticLockingFailureException("conflict"))
+                .when(commentRepository).updateTextById(1L, 0L, "new");
+
+        //when
+        var thrown = catchThrowable(() -> sut.editCommentTextById(1L, text -> "new"));
+
+        //then
+        assertThat(thrown).isInstanceOf(OptimisticLockingFailureException.class);
+        verify(commentRepository, times(2)).updateTextById(1L, 0L, "new");
+        assertThat(meterRegistry.get(ConflictRetryAspect.CONFLICTS).tag("outcome", "exhausted").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Не повторять обновление по версии, которую передал вызывающий")
+    void shouldNotRetryUpdateWithCallerVersion() {
+        //given
+        doThrow(new OptimisticLockingFailureException("conflict"))
+                .when(commentRepository).updateTextById(1L, 0L, "new");
+
+        //when
+        var thrown = catchThrowable(() -> sut.updateCommentTextById(1L, 0L, "new"));
+
+        //then
+        assertThat(thrown).isInstanceOf(OptimisticLockingFailureException.class);
+        verify(commentRepository, times(1)).updateTextById(1L, 0L, "new");
+        assertThat(meterRegistry.find(ConflictRetryAspect.CONFLICTS).counters()).isEmpty();
+    }
+
+    private static Comment comment(long version, String text) {
+        return Comment.builder()
+                .id(1L)
+                .text(text)
+                .version(version)
+                .build();
+    }
+}
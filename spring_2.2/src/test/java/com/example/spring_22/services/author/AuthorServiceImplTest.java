@@ -1,5 +1,6 @@
 package com.example.spring_22.services.author;
 
+import com.example.spring_22.cache.LookupCache;
 import com.example.spring_22.dao.author.AuthorRepository;
 import com.example.spring_22.domain.Author;
 import org.junit.jupiter.api.DisplayName;
@@ -7,12 +8,16 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
-import java.util.Optional;
+import java.time.Duration;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @DisplayName("Сервис для работы с авторами должен:")
@@ -22,6 +27,9 @@ class AuthorServiceImplTest {
     @Mock
     private AuthorRepository authorRepository;
 
+    @Spy
+    private LookupCache<Author> authorCache = new LookupCache<>("authors", 10, Duration.ofMinutes(1));
+
     @InjectMocks
     private AuthorServiceImpl sut;
 
@@ -30,14 +38,14 @@ class AuthorServiceImplTest {
     void shouldSaveNotExistingAuthor() {
         //given
         var author = mock(Author.class);
-        when(authorRepository.getByFullName(author.getFullName())).thenReturn(Optional.empty());
-        when(authorRepository.save(author)).thenReturn(author);
+        when(authorRepository.upsertByFullName(author.getFullName())).thenReturn(author);
 
         //when
         var result = sut.saveAuthorIfNotExists(author);
 
         //then
         assertEquals(author, result);
+        verify(authorRepository, never()).save(any());
     }
 
     @Test
@@ -45,12 +53,37 @@ class AuthorServiceImplTest {
     void shouldReturnExistingAuthor() {
         //given
         var author = mock(Author.class);
-        when(authorRepository.getByFullName(author.getFullName())).thenReturn(Optional.of(author));
+        when(authorRepository.upsertByFullName(author.getFullName())).thenReturn(author);
 
         //when
         var result = sut.saveAuthorIfNotExists(author);
 
         //then
         assertEquals(author, result);
+        verify(authorRepository, never()).getByFullName(any());
+        verify(authorRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("Возвращать закэшированное значение без запроса в базу")
+    void shouldReturnCachedAuthorWithoutQuery() {
+        //given
+        var author = Author.builder()
+                .id(1L)
+                .fullName("name")
+                .build();
+        when(authorRepository.upsertByFullName(author.getFullName())).thenReturn(author);
+        sut.saveAuthorIfNotExists(author);
+
+        //when
+        var result = sut.saveAuthorIfNotExists(Author.builder()
+                .fullName("name")
+                .build());
+
+        //then
+        assertEquals(author, result);
+        verify(authorRepository).upsertByFullName(author.getFullName());
+        assertEquals(1, authorCache.stats().hitCount());
+        assertEquals(1, authorCache.stats().missCount());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,135 @@
+package com.example.spring_22.services.book;
+
+import com.example.spring_22.config.LibraryProperties;
+import com.example.spring_22.config.LookupCacheConfig;
+import com.example.spring_22.config.YamlPropertySourceFactory;
+import com.example.spring_22.dao.author.AuthorRepositoryJpa;
+import com.example.spring_22.dao.book.BookRepositoryJpa;
+import com.example.spring_22.dao.genre.GenreRepositoryJpa;
+import com.example.spring_22.domain.Author;
+import com.example.spring_22.domain.Book;
+import com.example.spring_22.domain.Genre;
+import com.example.spring_22.metrics.StatementScope;
+import com.example.spring_22.services.author.AuthorServiceImpl;
+import com.example.spring_22.services.genre.GenreServiceImpl;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.util.ArrayList;
+import java.util.Set;
+
+import static com.example.spring_22.metrics.StatementAssertions.assertMaxStatements;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Сервис для работы с книгами должен укладываться в бюджет запросов:")
+@DataJpaTest
+@Import({BookServiceImpl.class, BookRepositoryJpa.class, AuthorServiceImpl.class, AuthorRepositoryJpa.class,
+        GenreServiceImpl.class, GenreRepositoryJpa.class, LookupCacheConfig.class})
+@EnableConfigurationProperties(LibraryProperties.class)
+@TestPropertySource(value = "/application-test.yml", factory = YamlPropertySourceFactory.class)
+@Sql(value = "classpath:data.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_CLASS)
+class BookServiceImplStatementBudgetTest {
+
+    @Autowired
+    private BookServiceImpl sut;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @BeforeEach
+    void setUp() {
+        entityManager.clear();
+    }
+
+    @Test
+    @DisplayName("Получать книгу по id одним запросом")
+    void shouldGetBookByIdInOneStatement() {
+        //when
+        var book = assertMaxStatements(1, () -> sut.getBookById(3L));
+
+        //then
+        assertThat(book)
+                .isPresent()
+                .get()
+                .satisfies(value -> assertThat(value.getGenres()).hasSize(2));
+    }
+
+    @Test
+    @DisplayName("Получать страницу книг двумя запросами")
+    void shouldGetBooksPageInTwoStatements() {
+        //when
+        var page = assertMaxStatements(2, () -> sut.getBooksPage(0L, 3));
+
+        //then
+        assertThat(page)
+                .hasSize(3)
+                .allSatisfy(book -> assertThat(book.getGenres()).isNotEmpty());
+    }
+
+    @Test
+    @DisplayName("Обходить все книги одним запросом")
+    void shouldGetAllBooksInOneStatement() {
+        //given
+        var genreCounts = new ArrayList<Integer>();
+
+        //when
+        assertMaxStatements(1, () -> sut.getAllBooks(book -> genreCounts.add(book.getGenres().size())));
+
+        //then
+        assertThat(genreCounts)
+                .containsExactly(1, 1, 2);
+    }
+
+    @Test
+    @DisplayName("Обновлять книгу без изменений не более чем за 5 запросов вместе с поиском автора и жанров")
+    void shouldUpdateUnchangedBookInAtMostFiveStatements() {
+        //given
+        var book = Book.builder()
+                .id(3L)
+                .name("Romance-adventure novel")
+                .author(Author.builder()
+                        .fullName("Rubina")
+                        .build())
+                .genres(Set.of(Genre.builder().genreName("Adventure").build(),
+                        Genre.builder().genreName("Romance").build()))
+                .build();
+
+        //when
+        assertMaxStatements(5, () -> {
+            sut.updateBookById(book);
+            entityManager.flush();
+        });
+
+        //then
+        assertThat(sut.getBookById(3L))
+                .isPresent()
+                .get()
+                .satisfies(value -> assertThat(value.getGenres())
+                        .extracting(Genre::getGenreName)
+                        .containsExactlyInAnyOrder("Adventure", "Romance"));
+    }
+
+    @Test
+    @DisplayName("Считать повторяющиеся одинаковые запросы")
+    void shouldCountRepeatedStatements() {
+        //when
+        Integer repeated;
+        try (var scope = StatementScope.open("test")) {
+            for (long bookId = 1; bookId <= 3; bookId++) {
+                sut.getBookById(bookId);
+            }
+            repeated = scope.repeatedStatements(3).values().stream().findFirst().orElse(0);
+        }
+
+        //then
+        assertThat(repeated).isEqualTo(3);
+    }
+}
@@ -1,10 +1,18 @@
 package com.example.spring_22.services.book;
 
+import com.example.spring_22.config.LibraryProperties;
+import com.example.spring_22.dao.MultiGetResult;
+import com.example.spring_22.dao.book.BookFilter;
 import com.example.spring_22.dao.book.BookRepository;
+import com.example.spring_22.dao.book.BookRepository.BookChanges;
+import com.example.spring_22.dao.book.BookRepository.DeletedRows;
 import com.example.spring_22.domain.Author;
 import com.example.spring_22.domain.Book;
 import com.example.spring_22.domain.Genre;
 import com.example.spring_22.services.author.AuthorService;
+import com.example.spring_22.services.events.BookChangedEvent;
+import com.example.spring_22.services.events.BooksDeletedEvent;
+import com.example.spring_22.services.events.ChangeType;
 import com.example.spring_22.services.genre.GenreService;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -14,14 +22,19 @@ import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Stream;
 
 import static java.util.Objects.nonNull;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.*;
 
@@ -38,6 +51,12 @@ class BookServiceImplTest {
     @Mock
     private GenreService genreService;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Spy
+    private LibraryProperties properties = new LibraryProperties();
+
     @InjectMocks
     private BookServiceImpl sut;
 
@@ -65,7 +84,7 @@ class BookServiceImplTest {
         var book = Book.builder()
                 .name("name")
                 .author(author.build())
-                .genres(List.of(genre.build()))
+                .genres(Set.of(genre.build()))
                 .build();
         when(bookRepository.save(bookToBeSaved)).thenReturn(bookFromDao);
         when(authorService.saveAuthorIfNotExists(author.build())).thenReturn(authorFromService);
@@ -77,7 +96,8 @@ class BookServiceImplTest {
         //then
         assertEquals(bookFromDao.getId(), result);
         verify(bookRepository, times(1)).updateAuthor(bookFromDao.getId(), authorFromService);
-        verify(bookRepository, times(1)).addGenreToBook(bookFromDao.getId(), genreFromService);
+        verify(bookRepository, times(1)).replaceGenres(bookFromDao.getId(), Set.of(genreFromService.getId()));
+        verify(eventPublisher, times(1)).publishEvent(new BookChangedEvent(bookFromDao.getId(), ChangeType.CREATED));
     }
 
     @Test
@@ -96,9 +116,9 @@ class BookServiceImplTest {
                 .id(1L)
                 .name("name")
                 .author(author)
-                .genres(List.of(genre))
+                .genres(Set.of(genre))
                 .build();
-        when(bookRepository.findById(expectedBook.getId())).thenReturn(Optional.of(expectedBook));
+        when(bookRepository.findWithAuthorAndGenresById(expectedBook.getId())).thenReturn(Optional.of(expectedBook));
 
         //when
         var actualBook = sut.getBookById(expectedBook.getId());
@@ -109,6 +129,21 @@ class BookServiceImplTest {
                 .isEqualTo(Optional.of(expectedBook));
     }
 
+    @Test
+    @DisplayName("Должен получать книги по списку id порциями из настроек")
+    void shouldGetBooksByIds() {
+        //given
+        var expected = new MultiGetResult<>(List.of(Book.builder().id(1L).build()), List.of(5L));
+        when(bookRepository.findAllByIds(List.of(1L, 5L), properties.getMultiGet().getChunkSize()))
+                .thenReturn(expected);
+
+        //when
+        var actual = sut.getBooksByIds(List.of(1L, 5L));
+
+        //then
+        assertEquals(expected, actual);
+    }
+
     @Test
     @DisplayName("Должен получать все книги")
     void shouldGetAllBooks() {
@@ -125,40 +160,49 @@ class BookServiceImplTest {
                 .id(1L)
                 .name("name")
                 .author(author)
-                .genres(List.of(genre))
+                .genres(Set.of(genre))
                 .build());
-        when(bookRepository.findAll()).thenReturn(expectedBooks);
+        when(bookRepository.streamAll(properties.getBooks().getFetchSize())).thenReturn(expectedBooks.stream());
 
         //when
-        var actualBooks = sut.getAllBooks();
+        var actualBooks = new ArrayList<Book>();
+        sut.getAllBooks(actualBooks::add);
 
         //then
         assertThat(actualBooks)
-                .containsAll(expectedBooks);
+                .containsExactlyElementsOf(expectedBooks);
+    }
+
+    @Test
+    @DisplayName("Должен получать страницу книг")
+    void shouldGetBooksPage() {
+        //given
+        var expectedBooks = List.of(Book.builder()
+                .id(2L)
+                .name("name")
+                .build());
+        when(bookRepository.findPage(1L, 1)).thenReturn(expectedBooks);
+
+        //when
+        var actualBooks = sut.getBooksPage(1L, 1);
+
+        //then
+        assertThat(actualBooks)
+                .containsExactlyElementsOf(expectedBooks);
     }
 
     @ParameterizedTest
     @MethodSource("getAuthorsAndNamesCombinations")
-    @DisplayName("Должен обновлять книгу, у которой нет жанров")
-    void shouldUpdateBook_whenNoGenres(String name, String newName, Author author, Author newAuthor) {
+    @DisplayName("Должен обновлять книгу, у которой нет жанров, одним патчем")
+    void shouldUpdateBook_whenNoGenres(String newName, Author newAuthor) {
         //given
-        var genre = Genre.builder()
-                .id(3L)
-                .genreName("genreName")
-                .build();
-        var bookBefore = Book.builder()
-                .id(1L)
-                .name(name)
-                .author(author)
-                .genres(List.of(genre))
-                .build();
         var expectedBook = Book.builder()
                 .id(1L)
                 .name(newName)
                 .author(newAuthor)
-                .genres(List.of())
+                .genres(Set.of())
+                .version(2L)
                 .build();
-        when(bookRepository.findById(expectedBook.getId())).thenReturn(Optional.of(bookBefore));
         if (nonNull(newAuthor)) {
             when(authorService.saveAuthorIfNotExists(newAuthor)).thenReturn(newAuthor);
         }
@@ -167,9 +211,10 @@ class BookServiceImplTest {
         sut.updateBookById(expectedBook);
 
         //then
-        verify(bookRepository, times(1)).updateNameById(expectedBook.getId(), expectedBook.getName());
-        verify(bookRepository, times(1)).updateAuthor(expectedBook.getId(), newAuthor);
-        verify(bookRepository, times(1)).deleteBookGenreLinks(expectedBook.getId());
+        verify(bookRepository, times(1)).patch(new BookChanges(expectedBook.getId(), 2L, newName, true,
+                nonNull(newAuthor) ? newAuthor.getId() : null, Set.of()));
+        verify(bookRepository, never()).findById(anyLong());
+        verify(bookRepository, never()).updateAuthor(anyLong(), any());
     }
 
     private static Stream<Arguments> getAuthorsAndNamesCombinations() {
@@ -182,46 +227,114 @@ class BookServiceImplTest {
                 .fullName("newFullName")
                 .build();
         return Stream.of(
-                Arguments.of("name", null, author1, null),
-                Arguments.of(null, "name", null, author1),
-                Arguments.of("name", "newName", author1, author2)
+                Arguments.of(null, null),
+                Arguments.of("name", author1),
+                Arguments.of("newName", author2)
         );
     }
 
     @Test
-    @DisplayName("Должен обновлять книгу c новыми жанрами")
-    void shouldUpdateBook_whenNewGenres() {
+    @DisplayName("Должен оставлять жанры книги, если они не переданы")
+    void shouldKeepGenres_whenGenresAreNotGiven() {
         //given
-        var oldGenre = Genre.builder()
-                .id(3L)
-                .genreName("genreName")
+        var book = Book.builder()
+                .id(1L)
+                .name("name")
                 .build();
-        var newGenre = Genre.builder()
+
+        //when
+        sut.updateBookById(book);
+
+        //then
+        verify(bookRepository, times(1)).patch(new BookChanges(1L, 0L, "name", true, null, null));
+        verify(genreService, never()).saveGenreIfNotExists(any());
+    }
+
+    @Test
+    @DisplayName("Должен применять правку к текущей книге и сохранять её по прочитанной версии")
+    void shouldEditCurrentBookAtReadVersion() {
+        //given
+        var genre = Genre.builder()
                 .id(4L)
-                .genreName("newGenreName")
+                .genreName("genreName")
                 .build();
-        var bookBefore = Book.builder()
+        var currentBook = Book.builder()
                 .id(1L)
                 .name("name")
-                .author(null)
-                .genres(List.of(oldGenre))
+                .version(3L)
+                .genres(Set.of(genre))
+                .build();
+        when(bookRepository.findWithAuthorAndGenresById(1L)).thenReturn(Optional.of(currentBook));
+        when(genreService.saveGenreIfNotExists(genre)).thenReturn(genre);
+
+        //when
+        sut.editBookById(1L, book -> book.setName("newName"));
+
+        //then
+        verify(bookRepository, times(1)).patch(new BookChanges(1L, 3L, "newName", true, null, Set.of(4L)));
+        assertThat(currentBook.getName()).isEqualTo("name");
+    }
+
+    @Test
+    @DisplayName("Должен обновлять книгу c новыми жанрами")
+    void shouldUpdateBook_whenNewGenres() {
+        //given
+        var newGenre = Genre.builder()
+                .id(4L)
+                .genreName("newGenreName")
                 .build();
         var expectedBook = Book.builder()
                 .id(1L)
                 .name("name")
                 .author(null)
-                .genres(List.of(newGenre))
+                .genres(Set.of(newGenre))
                 .build();
-        when(bookRepository.findById(expectedBook.getId())).thenReturn(Optional.of(bookBefore));
+        when(genreService.saveGenreIfNotExists(newGenre)).thenReturn(newGenre);
 
         //when
         sut.updateBookById(expectedBook);
 
         //then
-        verify(bookRepository, times(0)).updateNameById(expectedBook.getId(), expectedBook.getName());
-        verify(bookRepository, times(0)).updateAuthor(expectedBook.getId(), expectedBook.getAuthor());
-        verify(bookRepository, times(1)).addGenreToBook(expectedBook.getId(), newGenre);
-        verify(bookRepository, times(1)).deleteGenreFromBook(expectedBook.getId(), oldGenre);
+        verify(bookRepository, times(1)).patch(new BookChanges(1L, 0L, "name", true, null, Set.of(newGenre.getId())));
+        verify(bookRepository, never()).replaceGenres(anyLong(), any());
+        verify(bookRepository, never()).addGenreToBook(anyLong(), any());
+        verify(bookRepository, never()).deleteGenreFromBook(anyLong(), any());
+    }
+
+    @Test
+    @DisplayName("Должен менять только переданные поля книги")
+    void shouldPatchOnlyGivenFields() {
+        //given
+        var patch = BookPatch.builder()
+                .bookId(1L)
+                .name("newName")
+                .build();
+
+        //when
+        sut.patchBook(patch);
+
+        //then
+        verify(bookRepository, times(1)).patch(new BookChanges(1L, null, "newName", false, null, null));
+        verifyNoInteractions(authorService, genreService);
+        verify(eventPublisher, times(1)).publishEvent(new BookChangedEvent(1L, ChangeType.UPDATED));
+    }
+
+    @Test
+    @DisplayName("Не должен одновременно задавать и удалять автора")
+    void shouldRejectPatchSettingAndRemovingAuthor() {
+        //given
+        var patch = BookPatch.builder()
+                .bookId(1L)
+                .author(Author.builder().fullName("fullName").build())
+                .removeAuthor(true)
+                .build();
+
+        //when
+        var thrown = catchThrowable(() -> sut.patchBook(patch));
+
+        //then
+        assertThat(thrown).isInstanceOf(IllegalArgumentException.class);
+        verifyNoInteractions(bookRepository);
     }
 
     @Test
@@ -237,4 +350,33 @@ class BookServiceImplTest {
         verify(bookRepository, times(1)).deleteById(book.getId());
     }
 
+    @Test
+    @DisplayName("Должен удалять книги по фильтру порциями и публиковать одно событие")
+    void shouldDeleteBooksByFilter() {
+        //given
+        var filter = BookFilter.byAuthorId(2L);
+        properties.getBooks().setDeleteChunkSize(1);
+        when(bookRepository.findIds(filter)).thenReturn(List.of(2L, 3L));
+        when(bookRepository.deleteAllByIds(List.of(2L, 3L), 1)).thenReturn(new DeletedRows(2, 0, 3));
+
+        //when
+        var result = sut.deleteBooks(filter);
+
+        //then
+        assertEquals(2, result.books());
+        assertEquals(3, result.genreLinks());
+        verify(eventPublisher, times(1)).publishEvent(new BooksDeletedEvent(2, List.of(2L, 3L)));
+    }
+
+    @Test
+    @DisplayName("Не должен удалять книги без фильтра")
+    void shouldNotDeleteBooksWithoutFilter() {
+        //when
+        var thrown = catchThrowable(() -> sut.deleteBooks(new BookFilter(null, null, null, null, null)));
+
+        //then
+        assertThat(thrown).isInstanceOf(IllegalArgumentException.class);
+        verifyNoInteractions(bookRepository, eventPublisher);
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,105 @@
+package com.example.spring_22.services.bookimport;
+
+import com.example.spring_22.config.YamlPropertySourceFactory;
+import com.example.spring_22.dao.bookimport.BookImportRepositoryJdbc;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DisplayName("Сервис импорта книг должен:")
+@DataJpaTest
+@Import({BookImportServiceImpl.class, BookImportRepositoryJdbc.class})
+@TestPropertySource(value = "/application-test.yml", factory = YamlPropertySourceFactory.class)
+@Sql(value = "classpath:data.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_CLASS)
+class BookImportServiceImplTest {
+
+    @Autowired
+    private BookImportServiceImpl sut;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Импортировать книги из csv в формате books.csv")
+    void shouldImportBooksFromCsv() throws IOException {
+        //given
+        var file = Files.writeString(tempDir.resolve("books.csv"), """
+                name;author_id
+                Bible;1
+                Harry Potter;2
+                """);
+
+        //when
+        var result = sut.importBooks(file, 1);
+
+        //then
+        assertEquals(2, result.rows());
+        assertThat(jdbcTemplate.queryForList("select author_id from book where name in ('Bible', 'Harry Potter') " +
+                "order by name", Long.class))
+                .containsExactly(1L, 2L);
+    }
+
+    @Test
+    @DisplayName("Импортировать книги с авторами и жанрами без дубликатов")
+    void shouldImportBooksWithAuthorsAndGenresWithoutDuplicates() throws IOException {
+        //given
+        var file = Files.writeString(tempDir.resolve("books.csv"), """
+                name;author;genres
+                First;Pushkin;Adventure,Poetry
+                Second;Tolstoy;Poetry
+                Third;Tolstoy;Adventure,Poetry,Poetry
+                """);
+
+        //when
+        var result = sut.importBooks(file, 2);
+
+        //then
+        assertEquals(3, result.rows());
+        assertEquals(1, count("select count(*) from author where full_name = 'Pushkin'"));
+        assertEquals(1, count("select count(*) from author where full_name = 'Tolstoy'"));
+        assertEquals(1, count("select count(*) from genre where genre_name = 'Adventure'"));
+        assertEquals(1, count("select count(*) from genre where genre_name = 'Poetry'"));
+        assertEquals(5, count("select count(*) from book_genre bg join book b on b.id = bg.book_id " +
+                "where b.name in ('First', 'Second', 'Third')"));
+    }
+
+    @Test
+    @DisplayName("Импортировать книги из json lines")
+    void shouldImportBooksFromJsonLines() throws IOException {
+        //given
+        var file = Files.writeString(tempDir.resolve("books.jsonl"), """
+                {"name": "Json book", "author": "Rubina", "genres": ["Romance"]}
+                {"name": "Json book without author"}
+                """);
+
+        //when
+        var result = sut.importBooks(file, 10);
+
+        //then
+        assertEquals(2, result.rows());
+        assertThat(jdbcTemplate.queryForList("select a.full_name from book b join author a on a.id = b.author_id " +
+                "where b.name = 'Json book'", String.class))
+                .isEqualTo(List.of("Rubina"));
+    }
+
+    private long count(String sql) {
+        return jdbcTemplate.queryForObject(sql, Long.class);
+    }
+}
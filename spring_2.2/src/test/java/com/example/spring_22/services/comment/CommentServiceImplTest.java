@@ -1,5 +1,6 @@
 package com.example.spring_22.services.comment;
 
+import com.example.spring_22.config.LibraryProperties;
 import com.example.spring_22.dao.comment.CommentRepository;
 import com.example.spring_22.domain.Book;
 import com.example.spring_22.domain.Comment;
@@ -9,14 +10,19 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -31,6 +37,15 @@ class CommentServiceImplTest {
     @Mock
     private BookService bookService;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private CommentWriteBehindQueue commentWriteBehindQueue;
+
+    @Spy
+    private LibraryProperties properties = new LibraryProperties();
+
     @InjectMocks
     private CommentServiceImpl sut;
 
@@ -63,6 +78,25 @@ class CommentServiceImplTest {
         verify(commentRepository, times(1)).updateCommentBook(commentFromDao, book);
     }
 
+    @Test
+    @DisplayName("Должен ставить комментарий в очередь отложенной записи")
+    void shouldEnqueueCommentToBook() {
+        //given
+        var comment = Comment.builder()
+                .text("text")
+                .book(Book.builder()
+                        .id(1L)
+                        .build())
+                .build();
+
+        //when
+        sut.enqueueCommentToBook(comment);
+
+        //then
+        verify(commentWriteBehindQueue, times(1)).enqueue(comment);
+        verify(commentRepository, never()).save(any());
+    }
+
     @Test
     @DisplayName("Должен получать комментарий по id")
     void shouldGetCommentById() {
@@ -95,6 +129,27 @@ class CommentServiceImplTest {
                 .containsAll(expectedComments);
     }
 
+    @Test
+    @DisplayName("Должен постранично отдавать все комментарии по книге")
+    void shouldStreamAllCommentsOfBookByPages() {
+        //given
+        var bookId = 1L;
+        properties.getComments().setPageSize(2);
+        var first = Comment.builder().id(1L).build();
+        var second = Comment.builder().id(2L).build();
+        var third = Comment.builder().id(5L).build();
+        when(commentRepository.findByBookId(bookId, 0L, 2)).thenReturn(List.of(first, second));
+        when(commentRepository.findByBookId(bookId, 2L, 2)).thenReturn(List.of(third));
+        var actualComments = new ArrayList<Comment>();
+
+        //when
+        sut.getAllCommentsOfBook(bookId, actualComments::add);
+
+        //then
+        assertThat(actualComments)
+                .containsExactly(first, second, third);
+    }
+
     @Test
     @DisplayName("Должен обновлять текст комментария")
     void shouldUpdateCommentTextById() {
@@ -102,10 +157,10 @@ class CommentServiceImplTest {
         var comment = mock(Comment.class);
 
         //when
-        sut.updateCommentTextById(comment.getId(), comment.getText());
+        sut.updateCommentTextById(comment.getId(), 3L, comment.getText());
 
         //then
-        verify(commentRepository, times(1)).updateTextById(comment.getId(), comment.getText());
+        verify(commentRepository, times(1)).updateTextById(comment.getId(), 3L, comment.getText());
     }
 
     @Test
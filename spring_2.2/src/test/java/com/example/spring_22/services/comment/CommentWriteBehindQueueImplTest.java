@@ -0,0 +1,98 @@
+package com.example.spring_22.services.comment;
+
+import com.example.spring_22.config.LibraryProperties;
+import com.example.spring_22.config.YamlPropertySourceFactory;
+import com.example.spring_22.dao.comment.CommentRepositoryJpa;
+import com.example.spring_22.domain.Book;
+import com.example.spring_22.domain.Comment;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+@DisplayName("Очередь отложенной записи комментариев должна:")
+@DataJpaTest
+@Import({CommentWriteBehindQueueImpl.class, CommentRepositoryJpa.class})
+@EnableConfigurationProperties(LibraryProperties.class)
+@TestPropertySource(value = "/application-test.yml", factory = YamlPropertySourceFactory.class, properties = {
+        "library.comments.write-behind.capacity=1000",
+        "library.comments.write-behind.flush-size=50",
+        "library.comments.write-behind.flush-interval=1s"})
+@Sql(value = "classpath:data.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_CLASS)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DirtiesContext
+class CommentWriteBehindQueueImplTest {
+
+    @Autowired
+    private CommentWriteBehindQueueImpl sut;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    @DisplayName("Записывать все принятые комментарии при остановке")
+    void shouldWriteQueuedCommentsOnStop() {
+        //given
+        sut.start();
+        IntStream.range(0, 120).forEach(i -> sut.enqueue(comment(2L, "queued " + i)));
+
+        //when
+        sut.stop();
+
+        //then
+        assertThat(jdbcTemplate.queryForObject("select count(*) from comment where comment_text like 'queued %'",
+                Long.class)).isEqualTo(120);
+        assertThat(sut.stats().written()).isEqualTo(120);
+        assertThat(sut.stats().pending()).isZero();
+    }
+
+    @Test
+    @DisplayName("Пропускать комментарий к несуществующей книге, не теряя остальные")
+    void shouldSkipOnlyBrokenComment() {
+        //given
+        sut.start();
+        sut.enqueue(comment(1L, "kept 1"));
+        sut.enqueue(comment(100L, "lost"));
+        sut.enqueue(comment(1L, "kept 2"));
+
+        //when
+        sut.stop();
+
+        //then
+        assertThat(jdbcTemplate.queryForObject("select count(*) from comment where comment_text like 'kept %'",
+                Long.class)).isEqualTo(2);
+        assertThat(sut.stats().failed()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Отклонять комментарии, когда очередь не запущена")
+    void shouldRejectCommentsWhenStopped() {
+        //when
+        var thrown = catchThrowable(() -> sut.enqueue(comment(1L, "text")));
+
+        //then
+        assertThat(thrown).isInstanceOf(IllegalStateException.class);
+    }
+
+    private Comment comment(long bookId, String text) {
+        return Comment.builder()
+                .text(text)
+                .book(Book.builder()
+                        .id(bookId)
+                        .build())
+                .build();
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.spring_22.services.datagen;
+
+import com.example.spring_22.config.YamlPropertySourceFactory;
+import com.example.spring_22.dao.bookimport.BookImportRepositoryJdbc;
+import com.example.spring_22.dao.datagen.DataGeneratorRepositoryJdbc;
+import com.example.spring_22.domain.Book;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DisplayName("Генератор тестовых данных должен:")
+@DataJpaTest
+@Import({DataGeneratorServiceImpl.class, DataGeneratorRepositoryJdbc.class, BookImportRepositoryJdbc.class})
+@TestPropertySource(value = "/application-test.yml", factory = YamlPropertySourceFactory.class)
+@Sql(value = "classpath:data.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_CLASS)
+class DataGeneratorServiceImplTest {
+
+    @Autowired
+    private DataGeneratorServiceImpl sut;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    @DisplayName("Генерировать заданное количество строк, переиспользуя существующие жанры")
+    void shouldGenerateRequestedAmountOfRows() {
+        //given
+        var spec = new GenerationSpec(5, 4, 3, 2, 1.1, 3, 42, 7);
+
+        //when
+        var result = sut.generate(spec);
+
+        //then
+        assertEquals(20, result.books());
+        assertEquals(40, result.bookGenreLinks());
+        assertEquals(60, result.comments());
+        assertEquals(1, result.genres());
+        assertEquals(23, count("select count(*) from book"));
+        assertEquals(62, count("select count(*) from comment"));
+        assertEquals(1, count("select count(*) from genre where genre_name = 'Adventure'"));
+    }
+
+    @Test
+    @DisplayName("Генерировать одинаковые данные для одинакового seed")
+    void shouldGenerateSameDataForSameSeed() {
+        //given
+        var spec = new GenerationSpec(3, 2, 5, 2, 1.5, 1, 7, 100);
+        var firstFrom = maxId("book");
+        sut.generate(spec);
+        var secondFrom = maxId("book");
+
+        //when
+        var result = sut.generate(spec);
+
+        //then
+        assertEquals(0, result.authors());
+        assertThat(books(secondFrom, Long.MAX_VALUE))
+                .containsExactlyElementsOf(books(firstFrom, secondFrom));
+    }
+
+    @Test
+    @DisplayName("Оставлять последовательности согласованными с Hibernate")
+    void shouldKeepSequencesAlignedWithHibernate() {
+        //given
+        sut.generate(new GenerationSpec(2, 2, 2, 1, 1.0, 0, 1, 10));
+        var book = Book.builder()
+                .name("After generation")
+                .build();
+
+        //when
+        entityManager.persist(book);
+        entityManager.flush();
+
+        //then
+        assertEquals(maxId("book"), book.getId());
+    }
+
+    private long count(String sql) {
+        return jdbcTemplate.queryForObject(sql, Long.class);
+    }
+
+    private List<String> books(long afterId, long upToId) {
+        return jdbcTemplate.query("select name, author_id from book where id > ? and id <= ? order by id",
+                (resultSet, row) -> {
+                    // the id suffix only keeps names unique, so it is left out of the comparison
+                    String name = resultSet.getString(1);
+                    return name.substring(0, name.lastIndexOf(' ')) + " by " + resultSet.getLong(2);
+                }, afterId, upToId);
+    }
+
+    private long maxId(String table) {
+        return jdbcTemplate.queryForObject("select max(id) from " + table, Long.class);
+    }
+}
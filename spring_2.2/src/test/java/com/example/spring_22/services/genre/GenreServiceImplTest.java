@@ -1,5 +1,6 @@
 package com.example.spring_22.services.genre;
 
+import com.example.spring_22.cache.LookupCache;
 import com.example.spring_22.dao.genre.GenreRepository;
 import com.example.spring_22.domain.Genre;
 import org.junit.jupiter.api.DisplayName;
@@ -7,12 +8,16 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
-import java.util.Optional;
+import java.time.Duration;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @DisplayName("Сервис для работы с жанрами должен:")
@@ -22,6 +27,9 @@ class GenreServiceImplTest {
     @Mock
     private GenreRepository genreRepository;
 
+    @Spy
+    private LookupCache<Genre> genreCache = new LookupCache<>("genres", 10, Duration.ofMinutes(1));
+
     @InjectMocks
     private GenreServiceImpl sut;
 
@@ -30,14 +38,14 @@ class GenreServiceImplTest {
     void shouldSaveNotExistingAuthor() {
         //given
         var genre = mock(Genre.class);
-        when(genreRepository.getByName(genre.getGenreName())).thenReturn(Optional.empty());
-        when(genreRepository.save(genre)).thenReturn(genre);
+        when(genreRepository.upsertByName(genre.getGenreName())).thenReturn(genre);
 
         //when
         var result = sut.saveGenreIfNotExists(genre);
 
         //then
         assertEquals(genre, result);
+        verify(genreRepository, never()).save(any());
     }
 
     @Test
@@ -45,12 +53,37 @@ class GenreServiceImplTest {
     void shouldReturnExistingAuthor() {
         //given
         var genre = mock(Genre.class);
-        when(genreRepository.getByName(genre.getGenreName())).thenReturn(Optional.of(genre));
+        when(genreRepository.upsertByName(genre.getGenreName())).thenReturn(genre);
 
         //when
         var result = sut.saveGenreIfNotExists(genre);
 
         //then
         assertEquals(genre, result);
+        verify(genreRepository, never()).getByName(any());
+        verify(genreRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("Возвращать закэшированное значение без запроса в базу")
+    void shouldReturnCachedGenreWithoutQuery() {
+        //given
+        var genre = Genre.builder()
+                .id(1L)
+                .genreName("name")
+                .build();
+        when(genreRepository.upsertByName(genre.getGenreName())).thenReturn(genre);
+        sut.saveGenreIfNotExists(genre);
+
+        //when
+        var result = sut.saveGenreIfNotExists(Genre.builder()
+                .genreName("name")
+                .build());
+
+        //then
+        assertEquals(genre, result);
+        verify(genreRepository).upsertByName(genre.getGenreName());
+        assertEquals(1, genreCache.stats().hitCount());
+        assertEquals(1, genreCache.stats().missCount());
     }
-}
\ No newline at end of file
+}
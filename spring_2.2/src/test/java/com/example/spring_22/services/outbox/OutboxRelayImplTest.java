@@ -0,0 +1,257 @@
+package com.example.spring_22.services.outbox;
+
+import com.example.spring_22.config.LibraryProperties;
+import com.example.spring_22.config.YamlPropertySourceFactory;
+import com.example.spring_22.dao.book.BookRepositoryJpa;
+import com.example.spring_22.dao.bookimport.BookImportRepositoryJdbc;
+import com.example.spring_22.dao.outbox.OutboxRepositoryJpa;
+import com.example.spring_22.domain.OutboxEvent.AggregateType;
+import com.example.spring_22.services.bookimport.BookImportService;
+import com.example.spring_22.services.bookimport.BookImportServiceImpl;
+import com.example.spring_22.services.events.BookChangedEvent;
+import com.example.spring_22.services.events.ChangeType;
+import com.example.spring_22.services.events.CommentChangedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@DisplayName("Ретранслятор исходящих событий должен:")
+@DataJpaTest
+@Import({OutboxServiceImpl.class, OutboxRelayImpl.class, OutboxRepositoryJpa.class, BookRepositoryJpa.class,
+        BookImportServiceImpl.class, BookImportRepositoryJdbc.class, OutboxRelayImplTest.RecordingListener.class})
+@EnableConfigurationProperties(LibraryProperties.class)
+@TestPropertySource(value = "/application-test.yml", factory = YamlPropertySourceFactory.class, properties = {
+        "library.outbox.relay-enabled=false",
+        "library.outbox.settle-time=0s"})
+@Sql(value = "classpath:data.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_CLASS)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DirtiesContext
+class OutboxRelayImplTest {
+
+    @Autowired
+    private OutboxRelayImpl sut;
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @Autowired
+    private RecordingListener listener;
+
+    @Autowired
+    private LibraryProperties properties;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private BookImportService bookImportService;
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.execute("delete from outbox_event");
+        listener.received.clear();
+        listener.failingBookId = null;
+    }
+
+    @Test
+    @DisplayName("Записывать события только закоммиченных изменений")
+    void shouldWriteEventsOfCommittedChangesOnly() {
+        //given
+        publishInTransaction(new BookChangedEvent(1L, ChangeType.UPDATED));
+        publishInTransaction(new CommentChangedEvent(1L, 1L, ChangeType.UPDATED));
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            eventPublisher.publishEvent(new BookChangedEvent(2L, ChangeType.DELETED));
+            status.setRollbackOnly();
+        });
+
+        //when
+        var events = outboxService.since(0, 10);
+
+        //then
+        assertThat(events)
+                .extracting(ChangeEvent::aggregateType, ChangeEvent::aggregateId, ChangeEvent::bookId,
+                        ChangeEvent::changeType)
+                .containsExactly(tuple(AggregateType.BOOK, 1L, 1L, ChangeType.UPDATED),
+                        tuple(AggregateType.COMMENT, 1L, 1L, ChangeType.UPDATED));
+        assertThat(outboxService.since(events.get(0).eventId(), 10))
+                .containsExactly(events.get(1));
+    }
+
+    @Test
+    @DisplayName("Записывать событие создания для каждой импортированной книги")
+    void shouldWriteCreatedEventForEveryImportedBook() throws IOException {
+        //given
+        var file = Files.writeString(tempDir.resolve("books.csv"), """
+                name;author;genres
+                Imported first;Pushkin;Adventure
+                Imported second;Tolstoy;Poetry
+                Imported third;Tolstoy;Poetry
+                """);
+
+        //when
+        bookImportService.importBooks(file, 2);
+        var events = outboxService.since(0, 10);
+
+        //then
+        assertThat(events)
+                .extracting(ChangeEvent::aggregateType, ChangeEvent::changeType)
+                .containsOnly(tuple(AggregateType.BOOK, ChangeType.CREATED));
+        assertThat(events)
+                .extracting(ChangeEvent::bookId)
+                .containsExactlyInAnyOrderElementsOf(jdbcTemplate.queryForList(
+                        "select id from book where name like 'Imported%'", Long.class))
+                .hasSize(3);
+    }
+
+    @Test
+    @DisplayName("Доставлять события книги по порядку, придерживая их после ошибки слушателя")
+    void shouldKeepBookOrderWhenListenerFails() {
+        //given
+        publishInTransaction(new BookChangedEvent(1L, ChangeType.UPDATED));
+        publishInTransaction(new BookChangedEvent(2L, ChangeType.UPDATED));
+        publishInTransaction(new BookChangedEvent(1L, ChangeType.DELETED));
+        listener.failingBookId = 1L;
+
+        //when
+        var deliveredWhileFailing = sut.relayBatch();
+        listener.failingBookId = null;
+        var deliveredAfterRecovery = sut.relayBatch();
+
+        //then
+        assertThat(deliveredWhileFailing).isEqualTo(1);
+        assertThat(deliveredAfterRecovery).isEqualTo(2);
+        assertThat(listener.received)
+                .extracting(ChangeEvent::bookId, ChangeEvent::changeType)
+                .containsExactly(tuple(2L, ChangeType.UPDATED),
+                        tuple(1L, ChangeType.UPDATED),
+                        tuple(1L, ChangeType.DELETED));
+        assertThat(sut.relayBatch()).isZero();
+    }
+
+    @Test
+    @DisplayName("Доставлять события комментариев одной книги в порядке коммита")
+    void shouldDeliverCommentsOfBookInCommitOrder() throws Exception {
+        //given
+        var firstAppended = new CountDownLatch(1);
+        var releaseFirst = new CountDownLatch(1);
+        var executor = Executors.newFixedThreadPool(2);
+        int deliveredWhileFirstIsOpen;
+        try {
+            var first = executor.submit(() -> new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                eventPublisher.publishEvent(new CommentChangedEvent(1L, 1L, ChangeType.UPDATED));
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void beforeCommit(boolean readOnly) {
+                        firstAppended.countDown();
+                        await(releaseFirst);
+                    }
+                });
+            }));
+            assertThat(firstAppended.await(5, TimeUnit.SECONDS)).isTrue();
+            var second = executor.submit(() -> publishInTransaction(new CommentChangedEvent(2L, 1L, ChangeType.UPDATED)));
+            Thread.sleep(300);
+
+            //when
+            deliveredWhileFirstIsOpen = sut.relayBatch();
+            releaseFirst.countDown();
+            first.get(5, TimeUnit.SECONDS);
+            second.get(5, TimeUnit.SECONDS);
+            sut.relayBatch();
+        } finally {
+            executor.shutdownNow();
+        }
+
+        //then
+        assertThat(deliveredWhileFirstIsOpen).isZero();
+        assertThat(listener.received)
+                .extracting(ChangeEvent::aggregateId)
+                .containsExactly(1L, 2L);
+    }
+
+    @Test
+    @DisplayName("Удалять доставленные события порциями")
+    void shouldCleanUpDeliveredEvents() {
+        //given
+        properties.getOutbox().setRetention(Duration.ZERO);
+        properties.getOutbox().setCleanupBatchSize(2);
+        publishInTransaction(new BookChangedEvent(1L, ChangeType.UPDATED));
+        publishInTransaction(new BookChangedEvent(2L, ChangeType.UPDATED));
+        publishInTransaction(new BookChangedEvent(3L, ChangeType.UPDATED));
+        sut.relayBatch();
+        publishInTransaction(new BookChangedEvent(3L, ChangeType.DELETED));
+
+        //when
+        var deleted = sut.cleanUp();
+
+        //then
+        assertThat(deleted).isEqualTo(3);
+        assertThat(outboxService.since(0, 10))
+                .extracting(ChangeEvent::changeType)
+                .containsExactly(ChangeType.DELETED);
+    }
+
+    private void publishInTransaction(Object event) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> eventPublisher.publishEvent(event));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    static class RecordingListener implements ChangeEventListener {
+
+        private final List<ChangeEvent> received = new CopyOnWriteArrayList<>();
+
+        private volatile Long failingBookId;
+
+        @Override
+        public void onChange(ChangeEvent event) {
+            if (event.bookId() != null && event.bookId().equals(failingBookId)) {
+                throw new IllegalStateException("listener is down");
+            }
+            received.add(event);
+        }
+    }
+}
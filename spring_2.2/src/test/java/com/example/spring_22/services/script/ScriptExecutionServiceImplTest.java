@@ -0,0 +1,182 @@
+package com.example.spring_22.services.script;
+
+import com.example.spring_22.config.LibraryProperties;
+import com.example.spring_22.domain.Book;
+import com.example.spring_22.services.book.BookService;
+import com.example.spring_22.services.comment.CommentService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionSystemException;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@DisplayName("Сервис выполнения скриптов должен:")
+@ExtendWith(MockitoExtension.class)
+class ScriptExecutionServiceImplTest {
+
+    @Mock
+    private BookService bookService;
+
+    @Mock
+    private CommentService commentService;
+
+    @Mock
+    private DataSource dataSource;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Spy
+    private LibraryProperties properties = new LibraryProperties();
+
+    @InjectMocks
+    private ScriptExecutionServiceImpl sut;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+
+    @BeforeEach
+    void limitConcurrency() {
+        properties.getScript().setMaxConcurrency(3);
+    }
+
+    @Test
+    @DisplayName("Возвращать результаты параллельного запуска в порядке скрипта, не превышая лимит")
+    void shouldKeepScriptOrderAndConcurrencyLimit() {
+        //given
+        var lines = IntStream.rangeClosed(1, 20)
+                .mapToObj(i -> "add --bookName \"Book " + i + "\"")
+                .toList();
+        when(bookService.saveBook(any())).thenAnswer(invocation -> {
+            int current = inFlight.incrementAndGet();
+            maxInFlight.accumulateAndGet(current, Math::max);
+            Book book = invocation.getArgument(0);
+            long number = Long.parseLong(book.getName().substring("Book ".length()));
+            Thread.sleep((21 - number) * 2);
+            inFlight.decrementAndGet();
+            return number * 10;
+        });
+
+        //when
+        var result = sut.run(lines, 1, true);
+
+        //then
+        assertThat(result.concurrency()).isEqualTo(3);
+        assertThat(result.results())
+                .extracting(CommandResult::output)
+                .containsExactlyElementsOf(IntStream.rangeClosed(1, 20)
+                        .mapToObj(i -> "Saved book id : " + i * 10)
+                        .toList());
+        assertThat(maxInFlight.get()).isBetween(1, 3);
+    }
+
+    @Test
+    @DisplayName("Сообщать об ошибке команды, продолжая выполнять остальные")
+    void shouldReportFailedCommandAndContinue() {
+        //given
+        var lines = List.of("ac --bookId 1 --commentText nice", "get --id 1", "dc --commentId 5");
+
+        //when
+        var result = sut.run(lines, 1, false);
+
+        //then
+        assertThat(result.results())
+                .extracting(CommandResult::lineNumber, CommandResult::success)
+                .containsExactly(
+                        tuple(1, true),
+                        tuple(2, false),
+                        tuple(3, true));
+        assertThat(result.failures()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Откатывать только пакет с ошибкой и продолжать со следующего пакета")
+    void shouldRollBackFailedBatchOnly() {
+        //given
+        var lines = List.of(
+                "ac --bookId 1 --commentText first",
+                "ac --bookId x --commentText broken",
+                "ac --bookId 1 --commentText skipped",
+                "ac --bookId 2 --commentText next");
+
+        //when
+        var result = sut.run(lines, 3, false);
+
+        //then
+        assertThat(result.batches())
+                .extracting(BatchResult::number, BatchResult::committed)
+                .containsExactly(tuple(1, false), tuple(2, true));
+        assertThat(result.results())
+                .extracting(CommandResult::output)
+                .containsExactly("Rolled back: Saved comment id : 0", "For input string: \"x\"", "Skipped",
+                        "Saved comment id : 0");
+        verify(transactionManager, times(1)).rollback(any());
+        verify(transactionManager, times(1)).commit(any());
+    }
+
+    @Test
+    @DisplayName("Сообщать об ошибке сброса изменений в строке команды, которая её вызвала")
+    void shouldReportFlushFailureOnItsCommand() {
+        //given
+        var lines = List.of(
+                "ac --bookId 1 --commentText first",
+                "ac --bookId 7 --commentText orphan",
+                "ac --bookId 1 --commentText skipped");
+        doNothing().doThrow(new PersistenceException("Book 7 does not exist")).when(entityManager).flush();
+
+        //when
+        var result = sut.run(lines, 3, false);
+
+        //then
+        assertThat(result.results())
+                .extracting(CommandResult::output)
+                .containsExactly("Rolled back: Saved comment id : 0", "Book 7 does not exist", "Skipped");
+        assertThat(result.batches())
+                .extracting(BatchResult::error)
+                .containsOnlyNulls();
+    }
+
+    @Test
+    @DisplayName("Сообщать об ошибке фиксации для всего пакета, не называя строку")
+    void shouldReportCommitFailureOnBatch() {
+        //given
+        var lines = List.of("ac --bookId 1 --commentText first", "ac --bookId 2 --commentText second");
+        doThrow(new TransactionSystemException("Commit failed")).when(transactionManager).commit(any());
+
+        //when
+        var result = sut.run(lines, 2, false);
+
+        //then
+        assertThat(result.results())
+                .extracting(CommandResult::output)
+                .containsExactly("Rolled back: Saved comment id : 0", "Rolled back: Saved comment id : 0");
+        assertThat(result.batches())
+                .extracting(BatchResult::committed, BatchResult::error)
+                .containsExactly(tuple(false, "Commit failed"));
+    }
+}
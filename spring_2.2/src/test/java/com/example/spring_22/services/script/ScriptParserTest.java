@@ -0,0 +1,59 @@
+package com.example.spring_22.services.script;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.assertj.core.api.Assertions.tuple;
+
+@DisplayName("Разбор скрипта команд должен:")
+class ScriptParserTest {
+
+    @Test
+    @DisplayName("Разбирать команду с кавычками и несколькими значениями опции")
+    void shouldParseQuotedAndMultiValuedOptions() {
+        //given
+        var lines = List.of("add --bookName \"War and peace\" --authorFullName 'Leo Tolstoy' --genreNames Novel Drama");
+
+        //when
+        var commands = ScriptParser.parse(lines);
+
+        //then
+        assertThat(commands).hasSize(1);
+        var command = commands.get(0);
+        assertThat(command.key()).isEqualTo("add");
+        assertThat(command.option("bookName")).isEqualTo("War and peace");
+        assertThat(command.option("authorFullName")).isEqualTo("Leo Tolstoy");
+        assertThat(command.values("genreNames")).containsExactly("Novel", "Drama");
+    }
+
+    @Test
+    @DisplayName("Пропускать пустые строки и комментарии, сохраняя номера строк")
+    void shouldSkipBlankLinesAndComments() {
+        //given
+        var lines = List.of("# books", "", "d --id 1", "// comments", "dc --commentId 2");
+
+        //when
+        var commands = ScriptParser.parse(lines);
+
+        //then
+        assertThat(commands)
+                .extracting(ScriptCommand::lineNumber, ScriptCommand::key)
+                .containsExactly(tuple(3, "d"), tuple(5, "dc"));
+    }
+
+    @Test
+    @DisplayName("Сообщать о незакрытой кавычке")
+    void shouldRejectUnclosedQuote() {
+        //when
+        var thrown = catchThrowable(() -> ScriptParser.parse(List.of("add --bookName \"War")));
+
+        //then
+        assertThat(thrown)
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Line 1");
+    }
+}
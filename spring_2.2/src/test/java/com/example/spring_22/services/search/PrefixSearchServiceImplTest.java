@@ -0,0 +1,114 @@
+package com.example.spring_22.services.search;
+
+import com.example.spring_22.config.LibraryProperties;
+import com.example.spring_22.dao.book.BookRepository;
+import com.example.spring_22.domain.Author;
+import com.example.spring_22.domain.Book;
+import com.example.spring_22.index.PrefixIndex.PrefixMatch;
+import com.example.spring_22.services.events.BookChangedEvent;
+import com.example.spring_22.services.events.BooksDeletedEvent;
+import com.example.spring_22.services.events.ChangeType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@DisplayName("Сервис префиксного поиска должен:")
+@ExtendWith(MockitoExtension.class)
+class PrefixSearchServiceImplTest {
+
+    @Mock
+    private BookRepository bookRepository;
+
+    @Spy
+    private LibraryProperties properties = new LibraryProperties();
+
+    @InjectMocks
+    private PrefixSearchServiceImpl sut;
+
+    @BeforeEach
+    void loadIndex() {
+        var pushkin = Author.builder()
+                .id(1L)
+                .fullName("Pushkin")
+                .build();
+        when(bookRepository.streamAll(properties.getBooks().getFetchSize())).thenReturn(Stream.of(
+                Book.builder().id(1L).name("Regular adventure novel").author(pushkin).build(),
+                Book.builder().id(2L).name("Regular romance novel").build()));
+        sut.reload();
+    }
+
+    @Test
+    @DisplayName("Загружать индекс из репозитория")
+    void shouldLoadIndexFromRepository() {
+        //when
+        var matches = sut.search("push", 10);
+
+        //then
+        assertThat(matches)
+                .extracting(PrefixMatch::bookId)
+                .containsExactly(1L);
+        assertThat(sut.footprint().books()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Перечитывать изменённую книгу")
+    void shouldReloadChangedBook() {
+        //given
+        when(bookRepository.findWithAuthorAndGenresById(2L)).thenReturn(Optional.of(Book.builder()
+                .id(2L)
+                .name("Winter saga")
+                .build()));
+
+        //when
+        sut.onBookChanged(new BookChangedEvent(2L, ChangeType.UPDATED));
+
+        //then
+        assertThat(sut.search("saga", 10))
+                .extracting(PrefixMatch::bookId)
+                .containsExactly(2L);
+        assertThat(sut.search("romance", 10)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Удалять книгу из индекса без запроса к базе")
+    void shouldRemoveDeletedBook() {
+        //when
+        sut.onBookChanged(new BookChangedEvent(1L, ChangeType.DELETED));
+
+        //then
+        assertThat(sut.search("regular", 10))
+                .extracting(PrefixMatch::bookId)
+                .containsExactly(2L);
+        verify(bookRepository, never()).findWithAuthorAndGenresById(1L);
+    }
+
+    @Test
+    @DisplayName("Удалять из индекса только удалённые книги, не перечитывая все")
+    void shouldRemoveDeletedBooksWithoutReload() {
+        //when
+        sut.onBooksDeleted(new BooksDeletedEvent(1, List.of(2L)));
+
+        //then
+        assertThat(sut.search("regular", 10))
+                .extracting(PrefixMatch::bookId)
+                .containsExactly(1L);
+        assertThat(sut.footprint().books()).isEqualTo(1);
+        verify(bookRepository, times(1)).streamAll(anyInt());
+    }
+}
@@ -1,5 +1,9 @@
-INSERT INTO AUTHOR (FULL_NAME) VALUES ('Pushkin'), ('Rubina');
-INSERT INTO BOOK (NAME, AUTHOR_ID) VALUES ('Regular adventure novel', 1), ('Regular romance novel', 2), ('Romance-adventure novel', 2);
-INSERT INTO GENRE (GENRE_NAME) VALUES ('Adventure'), ('Romance');
+INSERT INTO AUTHOR (ID, FULL_NAME) VALUES (1, 'Pushkin'), (2, 'Rubina');
+INSERT INTO BOOK (ID, NAME, AUTHOR_ID) VALUES (1, 'Regular adventure novel', 1), (2, 'Regular romance novel', 2), (3, 'Romance-adventure novel', 2);
+INSERT INTO GENRE (ID, GENRE_NAME) VALUES (1, 'Adventure'), (2, 'Romance');
 INSERT INTO BOOK_GENRE (BOOK_ID, GENRE_ID) VALUES (1, 1), (2, 2), (3, 1), (3, 2);
-INSERT INTO COMMENT (BOOK_ID, COMMENT_TEXT) VALUES (1, 'GOOD'), (1, 'BAD');
\ No newline at end of file
+INSERT INTO COMMENT (ID, BOOK_ID, COMMENT_TEXT) VALUES (1, 1, 'GOOD'), (2, 1, 'BAD');
+ALTER SEQUENCE AUTHOR_SEQ RESTART WITH 52;
+ALTER SEQUENCE BOOK_SEQ RESTART WITH 53;
+ALTER SEQUENCE GENRE_SEQ RESTART WITH 52;
+ALTER SEQUENCE COMMENT_SEQ RESTART WITH 52;
\ No newline at end of file
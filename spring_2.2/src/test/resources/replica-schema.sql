@@ -0,0 +1,11 @@
+CREATE SEQUENCE IF NOT EXISTS AUTHOR_SEQ START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS BOOK_SEQ START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS GENRE_SEQ START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS COMMENT_SEQ START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS OUTBOX_EVENT_SEQ START WITH 1 INCREMENT BY 50;
+CREATE TABLE IF NOT EXISTS AUTHOR (ID BIGINT NOT NULL PRIMARY KEY, FULL_NAME VARCHAR(255) NOT NULL UNIQUE);
+CREATE TABLE IF NOT EXISTS GENRE (ID BIGINT NOT NULL PRIMARY KEY, GENRE_NAME VARCHAR(255) NOT NULL UNIQUE);
+CREATE TABLE IF NOT EXISTS BOOK (ID BIGINT NOT NULL PRIMARY KEY, NAME VARCHAR(255), VERSION BIGINT DEFAULT 0 NOT NULL, AUTHOR_ID BIGINT REFERENCES AUTHOR (ID));
+CREATE TABLE IF NOT EXISTS BOOK_GENRE (BOOK_ID BIGINT NOT NULL REFERENCES BOOK (ID), GENRE_ID BIGINT NOT NULL REFERENCES GENRE (ID), PRIMARY KEY (BOOK_ID, GENRE_ID));
+CREATE TABLE IF NOT EXISTS COMMENT (ID BIGINT NOT NULL PRIMARY KEY, COMMENT_TEXT VARCHAR(255), VERSION BIGINT DEFAULT 0 NOT NULL, BOOK_ID BIGINT REFERENCES BOOK (ID));
+CREATE TABLE IF NOT EXISTS OUTBOX_EVENT (ID BIGINT NOT NULL PRIMARY KEY, AGGREGATE_TYPE VARCHAR(16) NOT NULL, AGGREGATE_ID BIGINT NOT NULL, BOOK_ID BIGINT, CHANGE_TYPE VARCHAR(16) NOT NULL, CREATED_AT TIMESTAMP WITH TIME ZONE NOT NULL, DELIVERED_AT TIMESTAMP WITH TIME ZONE);